@@ -0,0 +1,39 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+
+/**
+ * Points the teachers22PU persistence unit to an in-memory H2 database (in MySQL mode),
+ * which stands in for MySQL during the benchmarks.
+ */
+public class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {}
+
+    /**
+     * Create a fresh in-memory database and build the EntityManagerFactory against it.
+     *
+     * @param name The name of the database, so that trials do not share data.
+     */
+    public static void start(String name) {
+        System.setProperty("org.jboss.logging.provider", "slf4j");
+        System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+
+        System.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        System.setProperty("hibernate.connection.username", "sa");
+        System.setProperty("hibernate.connection.password", "");
+        System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty("hibernate.format_sql", "false");
+        JPAHelper.getEntityManagerFactory();
+    }
+
+    /**
+     * Close the EntityManagerFactory and drop the database. The factory cannot be built again in
+     * this JVM, so each trial needs its own fork (JMH's default).
+     */
+    public static void stop() {
+        JPAHelper.closeEMF();
+    }
+}
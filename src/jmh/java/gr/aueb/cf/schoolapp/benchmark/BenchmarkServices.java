@@ -0,0 +1,45 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.schoolapp.dao.UserDAOImpl;
+import gr.aueb.cf.schoolapp.service.TeacherServiceImpl;
+import gr.aueb.cf.schoolapp.service.UserServiceImpl;
+
+import java.lang.reflect.Field;
+
+/**
+ * Creates the service implementations outside of CDI, wiring their DAOs by hand.
+ */
+public class BenchmarkServices {
+
+    private BenchmarkServices() {}
+
+    /**
+     * Create a TeacherServiceImpl backed by a TeacherDAOImpl.
+     *
+     * @return The teacher service.
+     */
+    public static TeacherServiceImpl teacherService() {
+        return inject(new TeacherServiceImpl(), "teacherDAO", new TeacherDAOImpl());
+    }
+
+    /**
+     * Create a UserServiceImpl backed by a UserDAOImpl.
+     *
+     * @return The user service.
+     */
+    public static UserServiceImpl userService() {
+        return inject(new UserServiceImpl(), "userDAO", new UserDAOImpl());
+    }
+
+    private static <T> T inject(T target, String fieldName, Object dependency) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, dependency);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.schoolapp.dao.UserDAOImpl;
+import gr.aueb.cf.schoolapp.model.Teacher;
+import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CRUD operations of TeacherDAOImpl and UserDAOImpl, each in its own transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+    private static final int ROWS = 1000;
+
+    private final TeacherDAOImpl teacherDAO = new TeacherDAOImpl();
+    private final UserDAOImpl userDAO = new UserDAOImpl();
+    private long firstTeacherId;
+    private long firstUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start("dao");
+        firstTeacherId = newTeacher().getId();
+        firstUserId = newUser().getId();
+        for (int i = 1; i < ROWS; i++) {
+            newTeacher();
+            newUser();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public Teacher insertTeacher() {
+        return newTeacher();
+    }
+
+    @Benchmark
+    public Teacher getTeacherById() {
+        try {
+            JPAHelper.beginTransaction();
+            Teacher teacher = teacherDAO.getById(randomId(firstTeacherId));
+            JPAHelper.commitTransaction();
+            return teacher;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    /**
+     * Loads a teacher and changes it, as the service does: the commit flushes one versioned UPDATE.
+     */
+    @Benchmark
+    public Teacher updateTeacher() {
+        try {
+            JPAHelper.beginTransaction();
+            Teacher teacher = teacherDAO.getById(randomId(firstTeacherId));
+            teacher.setFirstname("Updated" + ThreadLocalRandom.current().nextInt());
+            JPAHelper.commitTransaction();
+            return teacher;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    @Benchmark
+    public void insertAndDeleteTeacher() {
+        Teacher teacher = newTeacher();
+        try {
+            JPAHelper.beginTransaction();
+            teacherDAO.delete(teacher.getId());
+            JPAHelper.commitTransaction();
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    @Benchmark
+    public User insertUser() {
+        return newUser();
+    }
+
+    @Benchmark
+    public User getUserById() {
+        try {
+            JPAHelper.beginTransaction();
+            User user = userDAO.getById(randomId(firstUserId));
+            JPAHelper.commitTransaction();
+            return user;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    /**
+     * Loads a user and changes it, as the service does: the commit flushes one versioned UPDATE.
+     */
+    @Benchmark
+    public User updateUser() {
+        try {
+            JPAHelper.beginTransaction();
+            User user = userDAO.getById(randomId(firstUserId));
+            user.setUsername("updated" + ThreadLocalRandom.current().nextInt());
+            JPAHelper.commitTransaction();
+            return user;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    @Benchmark
+    public void insertAndDeleteUser() {
+        User user = newUser();
+        try {
+            JPAHelper.beginTransaction();
+            userDAO.delete(user.getId());
+            JPAHelper.commitTransaction();
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    private Teacher newTeacher() {
+        Teacher teacher = new Teacher();
+        teacher.setFirstname("Firstname");
+        teacher.setLastname("Lastname");
+        try {
+            JPAHelper.beginTransaction();
+            teacherDAO.insert(teacher);
+            JPAHelper.commitTransaction();
+            return teacher;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setUsername("username");
+        user.setPassword("password");
+        try {
+            JPAHelper.beginTransaction();
+            userDAO.insert(user);
+            JPAHelper.commitTransaction();
+            return user;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    private static long randomId(long firstId) {
+        return firstId + ThreadLocalRandom.current().nextInt(ROWS);
+    }
+}
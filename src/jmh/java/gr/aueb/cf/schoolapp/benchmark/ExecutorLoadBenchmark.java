@@ -0,0 +1,101 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.service.TeacherServiceImpl;
+import gr.aueb.cf.schoolapp.service.util.DbExecutor;
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load on the DbExecutor with platform or virtual threads: a burst of concurrent read
+ * requests (each one unit of work around getTeacherById) is submitted at once, and
+ * rejected requests are retried like clients honouring Retry-After. A simulated network
+ * round trip per request stands in for the latency of a remote MySQL server.
+ * The virtual mode needs JDK 21+ (e.g. a build with -Pvirtual-threads).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorLoadBenchmark {
+    private static final int ROWS = 1000;
+    private static final long RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"1000", "5000"})
+    private int concurrency;
+
+    @Param({"0", "2"})
+    private int latencyMillis;
+
+    private final TeacherServiceImpl teacherService = BenchmarkServices.teacherService();
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("virtual".equals(mode) && !DbExecutor.isVirtualThreadSupported()) {
+            throw new IllegalStateException("Virtual threads need JDK 21 or later");
+        }
+        System.setProperty(DbExecutor.MODE_PROPERTY, mode);
+        BenchmarkDatabase.start("executor");
+        firstId = teacherService.insertTeacher(new TeacherDTO(null, "Firstname", "Lastname0")).getId();
+        for (int i = 1; i < ROWS; i++) {
+            teacherService.insertTeacher(new TeacherDTO(null, "Firstname", "Lastname" + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DbExecutor.shutdown();
+        BenchmarkDatabase.stop();
+        System.clearProperty(DbExecutor.MODE_PROPERTY);
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(submitWithRetry(this::request));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return futures.size();
+    }
+
+    private void request() {
+        JPAHelper.beginUnitOfWork(true);
+        try {
+            teacherService.getTeacherById(firstId + ThreadLocalRandom.current().nextInt(ROWS));
+            if (latencyMillis > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            }
+            JPAHelper.endUnitOfWork(true);
+        } catch (Exception e) {
+            JPAHelper.endUnitOfWork(false);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Future<?> submitWithRetry(Runnable task) {
+        while (true) {
+            try {
+                return DbExecutor.submit(task);
+            } catch (RejectedExecutionException e) {
+                LockSupport.parkNanos(RETRY_NANOS);
+            }
+        }
+    }
+}
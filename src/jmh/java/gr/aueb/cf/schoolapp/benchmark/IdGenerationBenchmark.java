@@ -0,0 +1,62 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.schoolapp.model.Teacher;
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput of TeacherDAOImpl for the different sequence optimizers.
+ * "none" allocates every ID with its own sequence round trip (the behaviour before
+ * pooled-lo), "pooled" and "pooled-lo" allocate blocks of 50 IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class IdGenerationBenchmark {
+    private static final int BATCH = 100;
+
+    @Param({"none", "pooled", "pooled-lo"})
+    private String optimizer;
+
+    private final TeacherDAOImpl teacherDAO = new TeacherDAOImpl();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("hibernate.id.optimizer.pooled.preferred", optimizer);
+        BenchmarkDatabase.start("ids_" + optimizer.replace('-', '_'));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Teacher> insertTeachers() {
+        List<Teacher> teachers = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            Teacher teacher = new Teacher();
+            teacher.setFirstname("Firstname");
+            teacher.setLastname("Lastname" + i);
+            teachers.add(teacher);
+        }
+        try {
+            JPAHelper.beginTransaction();
+            teacherDAO.insertAll(teachers);
+            JPAHelper.commitTransaction();
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+        return teachers;
+    }
+}
@@ -0,0 +1,68 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.service.util.AsyncFileHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Cost on the calling thread of a parameterized warning written to a file by the synchronous
+ * JUL FileHandler or by the AsyncFileHandler (with either overflow policy), under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LoggingBenchmark {
+
+    @Param({"sync", "async-drop", "async-block"})
+    private String handlerType;
+
+    private final Logger logger = Logger.getLogger("benchmark.logging");
+    private Handler handler;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = File.createTempFile("logging-benchmark", ".log");
+        if ("sync".equals(handlerType)) {
+            handler = new FileHandler(file.getPath(), true);
+            handler.setFormatter(new SimpleFormatter());
+        } else {
+            AsyncFileHandler.OverflowPolicy policy = "async-drop".equals(handlerType)
+                    ? AsyncFileHandler.OverflowPolicy.DROP
+                    : AsyncFileHandler.OverflowPolicy.BLOCK;
+            handler = new AsyncFileHandler(file.getPath(), 8192, policy);
+        }
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logger.removeHandler(handler);
+        handler.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public void warning() {
+        logger.log(java.util.logging.Level.WARNING, "Get teacher by id rollback - Teacher {0,number,#} not found",
+                ThreadLocalRandom.current().nextLong(1_000_000));
+    }
+
+    @Benchmark
+    public void disabledFine() {
+        logger.log(java.util.logging.Level.FINE, "Get teacher by id rollback - Teacher {0,number,#} not found",
+                ThreadLocalRandom.current().nextLong(1_000_000));
+    }
+}
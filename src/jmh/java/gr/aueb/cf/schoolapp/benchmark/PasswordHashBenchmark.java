@@ -0,0 +1,49 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.service.util.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calibrates the PBKDF2 cost for a target hash time on this machine and measures the resulting
+ * time of one hash, alone and with more concurrent callers than the hashing pool has threads.
+ * The calibrated number of iterations is printed and can be set with -Dschoolapp.password.iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"50", "100", "250"})
+    private long targetMillis;
+
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int iterations = PasswordHasher.calibrate(targetMillis);
+        PasswordHasher.setIterations(iterations);
+        hash = PasswordHasher.hash("password");
+        System.out.println("Calibrated for " + targetMillis + " ms: -Dschoolapp.password.iterations=" + iterations);
+    }
+
+    @Benchmark
+    public String hash() {
+        return PasswordHasher.hash("password");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return PasswordHasher.verify("password", hash);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String hashUnderLoad() {
+        return PasswordHasher.hash("password");
+    }
+}
@@ -0,0 +1,70 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.model.Teacher;
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TeacherDAOImpl.getByLastName (first page of 50) at several table sizes.
+ * The query cache is disabled, so every call reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private final TeacherDAOImpl teacherDAO = new TeacherDAOImpl();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("hibernate.cache.use_query_cache", "false");
+        BenchmarkDatabase.start("search_" + rows);
+
+        List<Teacher> teachers = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Teacher teacher = new Teacher();
+            teacher.setFirstname("Firstname");
+            teacher.setLastname("Lastname" + i);
+            teachers.add(teacher);
+        }
+        try {
+            JPAHelper.beginTransaction();
+            teacherDAO.insertAll(teachers);
+            JPAHelper.commitTransaction();
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public List<TeacherDTO> getByLastName() {
+        String prefix = "Lastname" + ThreadLocalRandom.current().nextInt(100);
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            List<TeacherDTO> teachers = teacherDAO.getByLastName(prefix, null, PAGE_SIZE);
+            JPAHelper.commitTransaction();
+            return teachers;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.schoolapp.dto.PageDTO;
+import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.rest.CborProvider;
+import gr.aueb.cf.schoolapp.rest.ObjectMapperResolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of TeacherDTO lists, as written by the REST resources, with a default
+ * ObjectMapper, with the application's shared one and with its CBOR counterpart.
+ * Run with "-prof gc" to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    @Param({"default", "shared", "cbor"})
+    private String mapperType;
+
+    private ObjectMapper mapper;
+    private List<TeacherDTO> teachers;
+    private PageDTO<TeacherDTO> page;
+    private JavaType pageType;
+    private byte[] serializedPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (mapperType.equals("cbor")) {
+            mapper = ObjectMapperResolver.getMapper(CborProvider.APPLICATION_CBOR_TYPE);
+        } else {
+            mapper = mapperType.equals("shared") ? ObjectMapperResolver.getMapper() : new ObjectMapper();
+        }
+        teachers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            teachers.add(new TeacherDTO((long) i, "Firstname" + i, "Lastname" + i));
+        }
+        page = new PageDTO<>(teachers, "MTAwOkxhc3RuYW1lOTk");
+        pageType = mapper.getTypeFactory().constructParametricType(PageDTO.class, TeacherDTO.class);
+        try {
+            serializedPage = mapper.writeValueAsBytes(page);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return mapper.writeValueAsBytes(teachers);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    /**
+     * Writes to a stream, as the entity provider does for a response, without collecting the bytes.
+     */
+    @Benchmark
+    public void writePage() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    /**
+     * Reads a page back, as a client of the resources does.
+     */
+    @Benchmark
+    public PageDTO<TeacherDTO> readPage() throws IOException {
+        return mapper.readValue(serializedPage, pageType);
+    }
+}
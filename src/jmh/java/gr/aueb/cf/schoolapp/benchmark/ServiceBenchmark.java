@@ -0,0 +1,85 @@
+package gr.aueb.cf.schoolapp.benchmark;
+
+import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.dto.UserCredentialsDTO;
+import gr.aueb.cf.schoolapp.model.Teacher;
+import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.TeacherServiceImpl;
+import gr.aueb.cf.schoolapp.service.UserServiceImpl;
+import gr.aueb.cf.schoolapp.service.util.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full transaction cycles (begin, work, commit, close) of TeacherServiceImpl and UserServiceImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+    private static final int ROWS = 1000;
+
+    private final TeacherServiceImpl teacherService = BenchmarkServices.teacherService();
+    private final UserServiceImpl userService = BenchmarkServices.userService();
+    private long firstTeacherId;
+    private long firstUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.start("service");
+        // Measure the transaction cycle, not the password hash (see PasswordHashBenchmark)
+        PasswordHasher.setIterations(1000);
+        firstTeacherId = teacherService.insertTeacher(new TeacherDTO(null, "Firstname", "Lastname0")).getId();
+        firstUserId = userService.insertUser(new UserCredentialsDTO(null, "username0", "password")).getId();
+        for (int i = 1; i < ROWS; i++) {
+            teacherService.insertTeacher(new TeacherDTO(null, "Firstname", "Lastname" + i));
+            userService.insertUser(new UserCredentialsDTO(null, "username" + i, "password"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public Teacher insertTeacher() throws Exception {
+        return teacherService.insertTeacher(new TeacherDTO(null, "Firstname", "Inserted"));
+    }
+
+    @Benchmark
+    public Teacher getTeacherById() throws Exception {
+        return teacherService.getTeacherById(randomId(firstTeacherId));
+    }
+
+    @Benchmark
+    public Teacher updateTeacher() throws Exception {
+        long id = randomId(firstTeacherId);
+        return teacherService.updateTeacher(new TeacherDTO(id, "Updated", "Lastname" + (id - firstTeacherId)), null);
+    }
+
+    @Benchmark
+    public List<TeacherDTO> getTeacherByLastname() throws Exception {
+        return teacherService.getTeacherByLastname("Lastname" + ThreadLocalRandom.current().nextInt(10), null, 50);
+    }
+
+    @Benchmark
+    public User insertUser() throws Exception {
+        return userService.insertUser(new UserCredentialsDTO(null, "inserted", "password"));
+    }
+
+    @Benchmark
+    public User getUserById() throws Exception {
+        return userService.getUserById(randomId(firstUserId));
+    }
+
+    private static long randomId(long firstId) {
+        return firstId + ThreadLocalRandom.current().nextInt(ROWS);
+    }
+}
@@ -1,8 +1,13 @@
 package gr.aueb.cf.schoolapp.dao;
 
+import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.Teacher;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 /**
  * This interface defines methods for managing teacher data in the data store.
  */
@@ -16,12 +21,13 @@ public interface ITeacherDAO {
     Teacher insert(Teacher teacher);
 
     /**
-     * Updates an existing teacher in the data store.
+     * Inserts new teachers into the data store using JDBC batching.
+     * The persistence context is flushed and cleared after every batch.
      *
-     * @param teacher The teacher object to be updated.
-     * @return The updated teacher object.
+     * @param teachers The teacher objects to be inserted.
+     * @return The teacher objects that have been inserted, with their IDs assigned.
      */
-    Teacher update(Teacher teacher);
+    List<Teacher> insertAll(List<Teacher> teachers);
 
     /**
      * Deletes a teacher from the data store by their ID.
@@ -31,12 +37,34 @@ public interface ITeacherDAO {
     void delete(Long id);
 
     /**
-     * Retrieves a list of teachers based on their last name.
+     * Deletes the teachers with the given IDs from the data store in a single statement.
      *
-     * @param lastname The last name to search for.
-     * @return A list of teachers with the provided last name.
+     * @param ids The IDs of the teachers to be deleted.
+     * @return The number of teachers deleted; IDs that do not exist are not counted.
      */
-    List<Teacher> getByLastName(String lastname);
+    int deleteAllById(Collection<Long> ids);
+
+    /**
+     * Retrieves one page of teachers, projected into TeacherDTO objects, whose last name starts with the given prefix,
+     * ordered by last name and ID.
+     *
+     * @param lastname The last name prefix to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of teachers to return.
+     * @return A list of at most {@code limit} teachers matching the provided last name.
+     */
+    List<TeacherDTO> getByLastName(String lastname, KeysetCursor after, int limit);
+
+    /**
+     * Streams all teachers, projected into TeacherDTO objects, whose last name starts with the given prefix, ordered by last name and ID.
+     * Rows are fetched from the database in chunks of {@code fetchSize} as the stream is consumed.
+     * The stream must be closed, and consumed while the current transaction is open.
+     *
+     * @param lastname  The last name prefix to search for.
+     * @param fetchSize The number of rows fetched per database round trip.
+     * @return A stream of the teachers matching the provided last name.
+     */
+    Stream<TeacherDTO> streamByLastName(String lastname, int fetchSize);
 
     /**
      * Retrieves a teacher from the data store by their ID.
@@ -45,4 +73,12 @@ public interface ITeacherDAO {
      * @return The teacher object corresponding to the provided ID.
      */
     Teacher getById(Long id);
+
+    /**
+     * Retrieves the version of a teacher from the data store by their ID, without loading the teacher.
+     *
+     * @param id The ID of the teacher.
+     * @return The version of the teacher, or null if there is no teacher with the provided ID.
+     */
+    VersionDTO getVersionById(Long id);
 }
@@ -1,8 +1,13 @@
 package gr.aueb.cf.schoolapp.dao;
 
+import gr.aueb.cf.schoolapp.dto.UserDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 /**
  * This interface defines methods for managing user data in the data store.
  */
@@ -16,12 +21,13 @@ public interface IUserDAO {
     User insert (User user);
 
     /**
-     * Updates an existing user in the data store.
+     * Inserts new users into the data store using JDBC batching.
+     * The persistence context is flushed and cleared after every batch.
      *
-     * @param user The user object to be updated.
-     * @return The updated user object.
+     * @param users The user objects to be inserted.
+     * @return The user objects that have been inserted, with their IDs assigned.
      */
-    User update (User user);
+    List<User> insertAll(List<User> users);
 
     /**
      * Deletes a user from the data store by their ID.
@@ -31,12 +37,42 @@ public interface IUserDAO {
     void delete(Long id);
 
     /**
-     * Retrieves a list of users based on their username.
+     * Deletes the users with the given IDs from the data store in a single statement.
      *
-     * @param username The username to search for.
-     * @return A list of users matching the provided username.
+     * @param ids The IDs of the users to be deleted.
+     * @return The number of users deleted; IDs that do not exist are not counted.
      */
-    List<User> getByUsername(String username);
+    int deleteAllById(Collection<Long> ids);
+
+    /**
+     * Retrieves one page of users, projected into UserDTO objects, whose username starts with the given prefix,
+     * ordered by username and ID.
+     *
+     * @param username The username prefix to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of users to return.
+     * @return A list of at most {@code limit} users matching the provided username.
+     */
+    List<UserDTO> getByUsername(String username, KeysetCursor after, int limit);
+
+    /**
+     * Streams all users, projected into UserDTO objects, whose username starts with the given prefix, ordered by username and ID.
+     * Rows are fetched from the database in chunks of {@code fetchSize} as the stream is consumed.
+     * The stream must be closed, and consumed while the current transaction is open.
+     *
+     * @param username  The username prefix to search for.
+     * @param fetchSize The number of rows fetched per database round trip.
+     * @return A stream of the users matching the provided username.
+     */
+    Stream<UserDTO> streamByUsername(String username, int fetchSize);
+
+    /**
+     * Retrieves the user with exactly the given username; if several users share it, the one with the lowest ID.
+     *
+     * @param username The username of the user to retrieve.
+     * @return The user object with the provided username, or null if there is none.
+     */
+    User getFirstByUsername(String username);
 
     /**
      * Retrieves a user from the data store by their ID.
@@ -45,4 +81,12 @@ public interface IUserDAO {
      * @return The user object corresponding to the provided ID.
      */
     User getById(Long id);
+
+    /**
+     * Retrieves the version of a user from the data store by their ID, without loading the user.
+     *
+     * @param id The ID of the user.
+     * @return The version of the user, or null if there is no user with the provided ID.
+     */
+    VersionDTO getVersionById(Long id);
 }
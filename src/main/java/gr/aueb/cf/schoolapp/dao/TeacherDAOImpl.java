@@ -1,17 +1,27 @@
 package gr.aueb.cf.schoolapp.dao;
 
+import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.Teacher;
 import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
+import gr.aueb.cf.schoolapp.service.util.Timed;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 
 import javax.inject.Named;
 import javax.ws.rs.ext.Provider;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This class provides an implementation of the ITeacherDAO interface
@@ -19,6 +29,7 @@ import java.util.List;
  */
 @Provider
 @Named("teacherDAOImpl")
+@Timed("dao")
 public class TeacherDAOImpl implements ITeacherDAO {
 
     /**
@@ -35,16 +46,24 @@ public class TeacherDAOImpl implements ITeacherDAO {
     }
 
     /**
-     * Updates an existing teacher in the data store.
+     * Inserts new teachers into the data store using JDBC batching.
+     * The persistence context is flushed and cleared after every batch.
      *
-     * @param teacher The teacher object to be updated.
-     * @return The updated teacher object.
+     * @param teachers The teacher objects to be inserted.
+     * @return The teacher objects that have been inserted, with their IDs assigned.
      */
     @Override
-    public Teacher update(Teacher teacher) {
-        getEntityManager().merge(teacher);
-        return teacher;
-
+    public List<Teacher> insertAll(List<Teacher> teachers) {
+        EntityManager em = getEntityManager();
+        int batchSize = JPAHelper.getBatchSize();
+        for (int i = 0; i < teachers.size(); i++) {
+            em.persist(teachers.get(i));
+            if ((i + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        return teachers;
     }
 
     /**
@@ -60,25 +79,83 @@ public class TeacherDAOImpl implements ITeacherDAO {
     }
 
     /**
-     * Retrieves a list of teachers based on their last name.
+     * Deletes the teachers with the given IDs from the data store in a single statement.
+     * Being a bulk statement, it also evicts the teachers cache region.
+     *
+     * @param ids The IDs of the teachers to be deleted.
+     * @return The number of teachers deleted; IDs that do not exist are not counted.
+     */
+    @Override
+    public int deleteAllById(Collection<Long> ids) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaDelete<Teacher> deleteQuery = builder.createCriteriaDelete(Teacher.class);
+        Root<Teacher> root = deleteQuery.from(Teacher.class);
+        deleteQuery.where(root.get("id").in(ids));
+        return getEntityManager().createQuery(deleteQuery).executeUpdate();
+    }
+
+    /**
+     * Retrieves one page of teachers, projected into TeacherDTO objects, whose last name starts with the given prefix,
+     * ordered by last name and ID.
      *
-     * @param lastname The last name to search for.
-     * @return A list of teachers with the provided last name.
+     * @param lastname The last name prefix to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of teachers to return.
+     * @return A list of at most {@code limit} teachers matching the provided last name.
      */
     @Override
-    public List<Teacher> getByLastName(String lastname) {
+    public List<TeacherDTO> getByLastName(String lastname, KeysetCursor after, int limit) {
         CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
-        CriteriaQuery<Teacher> selectQuery = builder.createQuery(Teacher.class);
+        CriteriaQuery<TeacherDTO> selectQuery = builder.createQuery(TeacherDTO.class);
         Root<Teacher> root = selectQuery.from(Teacher.class);
+        Path<String> lastnamePath = root.get("lastname");
+        Path<Long> idPath = root.get("id");
 
         ParameterExpression<String> tLastname = builder.parameter(String.class);
-        selectQuery.select(root).where((builder.like(root.get("lastname"), tLastname)));
+        Predicate where = builder.like(lastnamePath, tLastname);
+        if (after != null) {
+            where = builder.and(where, builder.or(
+                    builder.greaterThan(lastnamePath, after.getKey()),
+                    builder.and(builder.equal(lastnamePath, after.getKey()), builder.greaterThan(idPath, after.getId()))));
+        }
+        selectQuery.select(builder.construct(TeacherDTO.class, root.get("id"), root.get("firstname"), root.get("lastname")))
+                .where(where)
+                .orderBy(builder.asc(lastnamePath), builder.asc(idPath));
 
-        TypedQuery<Teacher> query = getEntityManager().createQuery(selectQuery);
+        TypedQuery<TeacherDTO> query = getEntityManager().createQuery(selectQuery);
         query.setParameter(tLastname, lastname + "%");
+        query.setMaxResults(limit);
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        query.setHint(HibernateHints.HINT_CACHE_REGION, "teacher-queries");
         return query.getResultList();
     }
 
+    /**
+     * Streams all teachers, projected into TeacherDTO objects, whose last name starts with the given prefix, ordered by last name and ID.
+     * Rows are fetched from the database in chunks of {@code fetchSize} as the stream is consumed.
+     * The stream must be closed, and consumed while the current transaction is open.
+     *
+     * @param lastname  The last name prefix to search for.
+     * @param fetchSize The number of rows fetched per database round trip.
+     * @return A stream of the teachers matching the provided last name.
+     */
+    @Override
+    public Stream<TeacherDTO> streamByLastName(String lastname, int fetchSize) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<TeacherDTO> selectQuery = builder.createQuery(TeacherDTO.class);
+        Root<Teacher> root = selectQuery.from(Teacher.class);
+
+        ParameterExpression<String> tLastname = builder.parameter(String.class);
+        selectQuery.select(builder.construct(TeacherDTO.class, root.get("id"), root.get("firstname"), root.get("lastname")))
+                .where(builder.like(root.get("lastname"), tLastname))
+                .orderBy(builder.asc(root.get("lastname")), builder.asc(root.get("id")));
+
+        TypedQuery<TeacherDTO> query = getEntityManager().createQuery(selectQuery);
+        query.setParameter(tLastname, lastname + "%");
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        return query.getResultStream();
+    }
+
     /**
      * Retrieves a teacher from the data store by their ID.
      *
@@ -91,6 +168,30 @@ public class TeacherDAOImpl implements ITeacherDAO {
         return em.find(Teacher.class, id);
     }
 
+    /**
+     * Retrieves the version of a teacher from the data store by their ID, without loading the teacher.
+     * The result is kept in the query cache until the teachers table changes.
+     *
+     * @param id The ID of the teacher.
+     * @return The version of the teacher, or null if there is no teacher with the provided ID.
+     */
+    @Override
+    public VersionDTO getVersionById(Long id) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<VersionDTO> selectQuery = builder.createQuery(VersionDTO.class);
+        Root<Teacher> root = selectQuery.from(Teacher.class);
+        ParameterExpression<Long> tId = builder.parameter(Long.class);
+        selectQuery.select(builder.construct(VersionDTO.class, root.get("id"), root.get("version"), root.get("lastModified")))
+                .where(builder.equal(root.get("id"), tId));
+
+        TypedQuery<VersionDTO> query = getEntityManager().createQuery(selectQuery);
+        query.setParameter(tId, id);
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        query.setHint(HibernateHints.HINT_CACHE_REGION, "teacher-queries");
+        List<VersionDTO> versions = query.getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
     private  EntityManager getEntityManager() {
         return JPAHelper.getEntityManager();
     }
@@ -1,18 +1,28 @@
 package gr.aueb.cf.schoolapp.dao;
 
 import gr.aueb.cf.schoolapp.model.Teacher;
+import gr.aueb.cf.schoolapp.dto.UserDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.User;
 import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
+import gr.aueb.cf.schoolapp.service.util.Timed;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 
 import javax.inject.Named;
 import javax.ws.rs.ext.Provider;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This class provides an implementation of the IUserDAO interface
@@ -20,6 +30,7 @@ import java.util.List;
  */
 @Provider
 @Named("userDAOImpl")
+@Timed("dao")
 public class UserDAOImpl implements IUserDAO {
 
     /**
@@ -36,15 +47,24 @@ public class UserDAOImpl implements IUserDAO {
     }
 
     /**
-     * Updates an existing user in the data store.
+     * Inserts new users into the data store using JDBC batching.
+     * The persistence context is flushed and cleared after every batch.
      *
-     * @param user The user object to be updated.
-     * @return The updated user object.
+     * @param users The user objects to be inserted.
+     * @return The user objects that have been inserted, with their IDs assigned.
      */
     @Override
-    public User update(User user) {
-        getEntityManager().merge(user);
-        return user;
+    public List<User> insertAll(List<User> users) {
+        EntityManager em = getEntityManager();
+        int batchSize = JPAHelper.getBatchSize();
+        for (int i = 0; i < users.size(); i++) {
+            em.persist(users.get(i));
+            if ((i + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        return users;
     }
 
     /**
@@ -60,25 +80,107 @@ public class UserDAOImpl implements IUserDAO {
     }
 
     /**
-     * Retrieves a list of users based on their username.
+     * Deletes the users with the given IDs from the data store in a single statement.
+     * Being a bulk statement, it also evicts the users cache region.
      *
-     * @param username The username to search for.
-     * @return A list of users with the provided username.
+     * @param ids The IDs of the users to be deleted.
+     * @return The number of users deleted; IDs that do not exist are not counted.
      */
     @Override
-    public List<User> getByUsername(String username) {
+    public int deleteAllById(Collection<Long> ids) {
         CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
-        CriteriaQuery<User> selectQuery = builder.createQuery(User.class);
+        CriteriaDelete<User> deleteQuery = builder.createCriteriaDelete(User.class);
+        Root<User> root = deleteQuery.from(User.class);
+        deleteQuery.where(root.get("id").in(ids));
+        return getEntityManager().createQuery(deleteQuery).executeUpdate();
+    }
+
+    /**
+     * Retrieves one page of users, projected into UserDTO objects, whose username starts with the given prefix,
+     * ordered by username and ID.
+     *
+     * @param username The username prefix to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of users to return.
+     * @return A list of at most {@code limit} users matching the provided username.
+     */
+    @Override
+    public List<UserDTO> getByUsername(String username, KeysetCursor after, int limit) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<UserDTO> selectQuery = builder.createQuery(UserDTO.class);
         Root<User> root = selectQuery.from(User.class);
+        Path<String> usernamePath = root.get("username");
+        Path<Long> idPath = root.get("id");
 
         ParameterExpression<String> tUsername = builder.parameter(String.class);
-        selectQuery.select(root).where((builder.like(root.get("username"), tUsername)));
+        Predicate where = builder.like(usernamePath, tUsername);
+        if (after != null) {
+            where = builder.and(where, builder.or(
+                    builder.greaterThan(usernamePath, after.getKey()),
+                    builder.and(builder.equal(usernamePath, after.getKey()), builder.greaterThan(idPath, after.getId()))));
+        }
+        selectQuery.select(builder.construct(UserDTO.class, root.get("id"), root.get("username")))
+                .where(where)
+                .orderBy(builder.asc(usernamePath), builder.asc(idPath));
 
-        TypedQuery<User> query = getEntityManager().createQuery(selectQuery);
+        TypedQuery<UserDTO> query = getEntityManager().createQuery(selectQuery);
         query.setParameter(tUsername, username + "%");
+        query.setMaxResults(limit);
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        query.setHint(HibernateHints.HINT_CACHE_REGION, "user-queries");
         return query.getResultList();
     }
 
+    /**
+     * Streams all users, projected into UserDTO objects, whose username starts with the given prefix, ordered by username and ID.
+     * Rows are fetched from the database in chunks of {@code fetchSize} as the stream is consumed.
+     * The stream must be closed, and consumed while the current transaction is open.
+     *
+     * @param username  The username prefix to search for.
+     * @param fetchSize The number of rows fetched per database round trip.
+     * @return A stream of the users matching the provided username.
+     */
+    @Override
+    public Stream<UserDTO> streamByUsername(String username, int fetchSize) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<UserDTO> selectQuery = builder.createQuery(UserDTO.class);
+        Root<User> root = selectQuery.from(User.class);
+
+        ParameterExpression<String> tUsername = builder.parameter(String.class);
+        selectQuery.select(builder.construct(UserDTO.class, root.get("id"), root.get("username")))
+                .where(builder.like(root.get("username"), tUsername))
+                .orderBy(builder.asc(root.get("username")), builder.asc(root.get("id")));
+
+        TypedQuery<UserDTO> query = getEntityManager().createQuery(selectQuery);
+        query.setParameter(tUsername, username + "%");
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        return query.getResultStream();
+    }
+
+    /**
+     * Retrieves the user with exactly the given username; if several users share it, the one with the lowest ID.
+     *
+     * @param username The username of the user to retrieve.
+     * @return The user object with the provided username, or null if there is none.
+     */
+    @Override
+    public User getFirstByUsername(String username) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<User> selectQuery = builder.createQuery(User.class);
+        Root<User> root = selectQuery.from(User.class);
+
+        ParameterExpression<String> tUsername = builder.parameter(String.class);
+        selectQuery.select(root)
+                .where(builder.equal(root.get("username"), tUsername))
+                .orderBy(builder.asc(root.get("id")));
+
+        TypedQuery<User> query = getEntityManager().createQuery(selectQuery);
+        query.setParameter(tUsername, username);
+        query.setMaxResults(1);
+        List<User> users = query.getResultList();
+        return users.isEmpty() ? null : users.get(0);
+    }
+
     /**
      * Retrieves a user from the data store by their ID.
      *
@@ -91,6 +193,30 @@ public class UserDAOImpl implements IUserDAO {
         return em.find(User.class, id);
     }
 
+    /**
+     * Retrieves the version of a user from the data store by their ID, without loading the user.
+     * The result is kept in the query cache until the users table changes.
+     *
+     * @param id The ID of the user.
+     * @return The version of the user, or null if there is no user with the provided ID.
+     */
+    @Override
+    public VersionDTO getVersionById(Long id) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<VersionDTO> selectQuery = builder.createQuery(VersionDTO.class);
+        Root<User> root = selectQuery.from(User.class);
+        ParameterExpression<Long> tId = builder.parameter(Long.class);
+        selectQuery.select(builder.construct(VersionDTO.class, root.get("id"), root.get("version"), root.get("lastModified")))
+                .where(builder.equal(root.get("id"), tId));
+
+        TypedQuery<VersionDTO> query = getEntityManager().createQuery(selectQuery);
+        query.setParameter(tId, id);
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        query.setHint(HibernateHints.HINT_CACHE_REGION, "user-queries");
+        List<VersionDTO> versions = query.getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
     private  EntityManager getEntityManager() {
         return JPAHelper.getEntityManager();
     }
@@ -0,0 +1,77 @@
+package gr.aueb.cf.schoolapp.dto;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for the outcome of a bulk delete.
+ * It encapsulates the number of distinct IDs requested and the number of entities actually deleted;
+ * IDs that did not exist account for the difference.
+ */
+public class BulkDeleteResultDTO {
+    private int requested;
+    private int deleted;
+
+    /**
+     * Default constructor for creating an empty BulkDeleteResultDTO object.
+     */
+    public BulkDeleteResultDTO() {
+    }
+
+    /**
+     * Parameterized constructor for creating a BulkDeleteResultDTO object with specific data.
+     *
+     * @param requested The number of distinct IDs requested.
+     * @param deleted   The number of entities deleted.
+     */
+    public BulkDeleteResultDTO(int requested, int deleted) {
+        this.requested = requested;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Get the number of distinct IDs requested.
+     *
+     * @return The number of requested IDs.
+     */
+    public int getRequested() {
+        return requested;
+    }
+
+    /**
+     * Set the number of distinct IDs requested.
+     *
+     * @param requested The number of requested IDs to set.
+     */
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    /**
+     * Get the number of entities deleted.
+     *
+     * @return The number of deleted entities.
+     */
+    public int getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Set the number of entities deleted.
+     *
+     * @param deleted The number of deleted entities to set.
+     */
+    public void setDeleted(int deleted) {
+        this.deleted = deleted;
+    }
+
+    /**
+     * Generate a string representation of the BulkDeleteResultDTO object.
+     *
+     * @return A string containing the number of requested IDs and deleted entities.
+     */
+    @Override
+    public String toString() {
+        return "BulkDeleteResultDTO{" +
+                "requested=" + requested +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
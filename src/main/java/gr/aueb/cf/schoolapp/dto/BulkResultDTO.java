@@ -0,0 +1,130 @@
+package gr.aueb.cf.schoolapp.dto;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for the outcome of one item of a bulk operation.
+ * It encapsulates the position of the item in the request, the resulting ID, a status and a message.
+ */
+public class BulkResultDTO {
+
+    /**
+     * The outcome of a bulk item.
+     */
+    public enum Status {
+        CREATED,    // The item was stored.
+        REJECTED,   // The item was not valid for the operation and was skipped.
+        FAILED      // The item was valid, but the transaction storing it failed.
+    }
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+
+    /**
+     * Default constructor for creating an empty BulkResultDTO object.
+     */
+    public BulkResultDTO() {
+    }
+
+    /**
+     * Parameterized constructor for creating a BulkResultDTO object with specific data.
+     *
+     * @param index   The position of the item in the bulk request.
+     * @param id      The ID of the stored item, or null if it was not stored.
+     * @param status  The outcome of the item.
+     * @param message A description of the outcome, or null.
+     */
+    public BulkResultDTO(int index, Long id, Status status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * Get the position of the item in the bulk request.
+     *
+     * @return The item position.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Set the position of the item in the bulk request.
+     *
+     * @param index The item position to set.
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Get the ID of the stored item.
+     *
+     * @return The item's ID, or null if it was not stored.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Set the ID of the stored item.
+     *
+     * @param id The item's ID to set.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the outcome of the item.
+     *
+     * @return The item status.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Set the outcome of the item.
+     *
+     * @param status The item status to set.
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Get the description of the outcome.
+     *
+     * @return The outcome message, or null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Set the description of the outcome.
+     *
+     * @param message The outcome message to set.
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Generate a string representation of the BulkResultDTO object.
+     *
+     * @return A string containing the item's index, ID, status and message.
+     */
+    @Override
+    public String toString() {
+        return "BulkResultDTO{" +
+                "index=" + index +
+                ", id=" + id +
+                ", status=" + status +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
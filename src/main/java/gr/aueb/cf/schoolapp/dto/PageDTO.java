@@ -0,0 +1,83 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for one page of a keyset-paginated result.
+ * It encapsulates the items of the page and the cursor pointing to the next page, if any.
+ *
+ * @param <T> The type of the items in the page.
+ */
+@JsonPropertyOrder({"items", "next"})
+public class PageDTO<T> {
+    private List<T> items;
+    private String next;
+
+    /**
+     * Default constructor for creating an empty PageDTO object.
+     */
+    public PageDTO() {
+    }
+
+    /**
+     * Parameterized constructor for creating a PageDTO object with specific data.
+     *
+     * @param items The items of the page.
+     * @param next  The cursor of the next page, or null if this is the last page.
+     */
+    public PageDTO(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Get the items of the page.
+     *
+     * @return The page items.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Set the items of the page.
+     *
+     * @param items The page items to set.
+     */
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    /**
+     * Get the cursor of the next page.
+     *
+     * @return The next page cursor, or null if this is the last page.
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Set the cursor of the next page.
+     *
+     * @param next The next page cursor to set.
+     */
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    /**
+     * Generate a string representation of the PageDTO object.
+     *
+     * @return A string containing the page items and the next page cursor.
+     */
+    @Override
+    public String toString() {
+        return "PageDTO{" +
+                "items=" + items +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,428 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import java.util.List;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for the query statistics of the application.
+ * It encapsulates the statement counters of the query monitor, the Hibernate statistics (which are
+ * zero while collection is disabled) and the most recent slow statements.
+ */
+public class QueryStatisticsDTO {
+    private boolean statisticsEnabled;
+    private boolean monitorEnabled;
+    private long slowQueryThresholdMillis;
+    private long statements;
+    private long slowStatements;
+    private long repeatedStatementWarnings;
+    private long statementLimitWarnings;
+    private long queryExecutionCount;
+    private long queryExecutionMaxTimeMillis;
+    private String slowestQuery;
+    private long entityLoadCount;
+    private long entityFetchCount;
+    private long collectionFetchCount;
+    private long secondLevelCacheHitCount;
+    private long secondLevelCacheMissCount;
+    private long queryCacheHitCount;
+    private long queryCacheMissCount;
+    private long prepareStatementCount;
+    private long transactionCount;
+    private List<SlowQueryDTO> recentSlowQueries;
+
+    /**
+     * Default constructor for creating an empty QueryStatisticsDTO object.
+     */
+    public QueryStatisticsDTO() {
+    }
+
+    /**
+     * Get whether Hibernate statistics are collected.
+     *
+     * @return Whether Hibernate statistics are collected.
+     */
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Set whether Hibernate statistics are collected.
+     *
+     * @param statisticsEnabled True if Hibernate statistics are collected.
+     */
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    /**
+     * Get whether the statements of new connections are monitored.
+     *
+     * @return Whether the statements of new connections are monitored.
+     */
+    public boolean isMonitorEnabled() {
+        return monitorEnabled;
+    }
+
+    /**
+     * Set whether the statements of new connections are monitored.
+     *
+     * @param monitorEnabled True if the statements of new connections are monitored.
+     */
+    public void setMonitorEnabled(boolean monitorEnabled) {
+        this.monitorEnabled = monitorEnabled;
+    }
+
+    /**
+     * Get the execution time in milliseconds above which statements are logged as slow.
+     *
+     * @return The execution time in milliseconds above which statements are logged as slow.
+     */
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    /**
+     * Set the execution time in milliseconds above which statements are logged as slow.
+     *
+     * @param slowQueryThresholdMillis The slow statement threshold in milliseconds to set.
+     */
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    /**
+     * Get the number of statements executed.
+     *
+     * @return The number of statements executed.
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * Set the number of statements executed.
+     *
+     * @param statements The number of statements executed to set.
+     */
+    public void setStatements(long statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * Get the number of statements slower than the threshold.
+     *
+     * @return The number of statements slower than the threshold.
+     */
+    public long getSlowStatements() {
+        return slowStatements;
+    }
+
+    /**
+     * Set the number of statements slower than the threshold.
+     *
+     * @param slowStatements The number of statements slower than the threshold to set.
+     */
+    public void setSlowStatements(long slowStatements) {
+        this.slowStatements = slowStatements;
+    }
+
+    /**
+     * Get the number of statements repeated too often within one unit of work (possible N+1 selects).
+     *
+     * @return The number of statements repeated too often within one unit of work (possible N+1 selects).
+     */
+    public long getRepeatedStatementWarnings() {
+        return repeatedStatementWarnings;
+    }
+
+    /**
+     * Set the number of statements repeated too often within one unit of work (possible N+1 selects).
+     *
+     * @param repeatedStatementWarnings The number of repeated statement warnings to set.
+     */
+    public void setRepeatedStatementWarnings(long repeatedStatementWarnings) {
+        this.repeatedStatementWarnings = repeatedStatementWarnings;
+    }
+
+    /**
+     * Get the number of units of work that executed too many statements.
+     *
+     * @return The number of units of work that executed too many statements.
+     */
+    public long getStatementLimitWarnings() {
+        return statementLimitWarnings;
+    }
+
+    /**
+     * Set the number of units of work that executed too many statements.
+     *
+     * @param statementLimitWarnings The number of units of work that executed too many statements to set.
+     */
+    public void setStatementLimitWarnings(long statementLimitWarnings) {
+        this.statementLimitWarnings = statementLimitWarnings;
+    }
+
+    /**
+     * Get the number of HQL and criteria queries executed.
+     *
+     * @return The number of HQL and criteria queries executed.
+     */
+    public long getQueryExecutionCount() {
+        return queryExecutionCount;
+    }
+
+    /**
+     * Set the number of HQL and criteria queries executed.
+     *
+     * @param queryExecutionCount The number of HQL and criteria queries executed to set.
+     */
+    public void setQueryExecutionCount(long queryExecutionCount) {
+        this.queryExecutionCount = queryExecutionCount;
+    }
+
+    /**
+     * Get the execution time of the slowest query in milliseconds.
+     *
+     * @return The execution time of the slowest query in milliseconds.
+     */
+    public long getQueryExecutionMaxTimeMillis() {
+        return queryExecutionMaxTimeMillis;
+    }
+
+    /**
+     * Set the execution time of the slowest query in milliseconds.
+     *
+     * @param queryExecutionMaxTimeMillis The execution time of the slowest query in milliseconds to set.
+     */
+    public void setQueryExecutionMaxTimeMillis(long queryExecutionMaxTimeMillis) {
+        this.queryExecutionMaxTimeMillis = queryExecutionMaxTimeMillis;
+    }
+
+    /**
+     * Get the slowest query.
+     *
+     * @return The slowest query.
+     */
+    public String getSlowestQuery() {
+        return slowestQuery;
+    }
+
+    /**
+     * Set the slowest query.
+     *
+     * @param slowestQuery The slowest query to set.
+     */
+    public void setSlowestQuery(String slowestQuery) {
+        this.slowestQuery = slowestQuery;
+    }
+
+    /**
+     * Get the number of entities loaded.
+     *
+     * @return The number of entities loaded.
+     */
+    public long getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    /**
+     * Set the number of entities loaded.
+     *
+     * @param entityLoadCount The number of entities loaded to set.
+     */
+    public void setEntityLoadCount(long entityLoadCount) {
+        this.entityLoadCount = entityLoadCount;
+    }
+
+    /**
+     * Get the number of entities fetched from the database.
+     *
+     * @return The number of entities fetched from the database.
+     */
+    public long getEntityFetchCount() {
+        return entityFetchCount;
+    }
+
+    /**
+     * Set the number of entities fetched from the database.
+     *
+     * @param entityFetchCount The number of entities fetched from the database to set.
+     */
+    public void setEntityFetchCount(long entityFetchCount) {
+        this.entityFetchCount = entityFetchCount;
+    }
+
+    /**
+     * Get the number of collections fetched from the database.
+     *
+     * @return The number of collections fetched from the database.
+     */
+    public long getCollectionFetchCount() {
+        return collectionFetchCount;
+    }
+
+    /**
+     * Set the number of collections fetched from the database.
+     *
+     * @param collectionFetchCount The number of collections fetched from the database to set.
+     */
+    public void setCollectionFetchCount(long collectionFetchCount) {
+        this.collectionFetchCount = collectionFetchCount;
+    }
+
+    /**
+     * Get the number of second-level cache hits.
+     *
+     * @return The number of second-level cache hits.
+     */
+    public long getSecondLevelCacheHitCount() {
+        return secondLevelCacheHitCount;
+    }
+
+    /**
+     * Set the number of second-level cache hits.
+     *
+     * @param secondLevelCacheHitCount The number of second-level cache hits to set.
+     */
+    public void setSecondLevelCacheHitCount(long secondLevelCacheHitCount) {
+        this.secondLevelCacheHitCount = secondLevelCacheHitCount;
+    }
+
+    /**
+     * Get the number of second-level cache misses.
+     *
+     * @return The number of second-level cache misses.
+     */
+    public long getSecondLevelCacheMissCount() {
+        return secondLevelCacheMissCount;
+    }
+
+    /**
+     * Set the number of second-level cache misses.
+     *
+     * @param secondLevelCacheMissCount The number of second-level cache misses to set.
+     */
+    public void setSecondLevelCacheMissCount(long secondLevelCacheMissCount) {
+        this.secondLevelCacheMissCount = secondLevelCacheMissCount;
+    }
+
+    /**
+     * Get the number of query cache hits.
+     *
+     * @return The number of query cache hits.
+     */
+    public long getQueryCacheHitCount() {
+        return queryCacheHitCount;
+    }
+
+    /**
+     * Set the number of query cache hits.
+     *
+     * @param queryCacheHitCount The number of query cache hits to set.
+     */
+    public void setQueryCacheHitCount(long queryCacheHitCount) {
+        this.queryCacheHitCount = queryCacheHitCount;
+    }
+
+    /**
+     * Get the number of query cache misses.
+     *
+     * @return The number of query cache misses.
+     */
+    public long getQueryCacheMissCount() {
+        return queryCacheMissCount;
+    }
+
+    /**
+     * Set the number of query cache misses.
+     *
+     * @param queryCacheMissCount The number of query cache misses to set.
+     */
+    public void setQueryCacheMissCount(long queryCacheMissCount) {
+        this.queryCacheMissCount = queryCacheMissCount;
+    }
+
+    /**
+     * Get the number of statements prepared.
+     *
+     * @return The number of statements prepared.
+     */
+    public long getPrepareStatementCount() {
+        return prepareStatementCount;
+    }
+
+    /**
+     * Set the number of statements prepared.
+     *
+     * @param prepareStatementCount The number of statements prepared to set.
+     */
+    public void setPrepareStatementCount(long prepareStatementCount) {
+        this.prepareStatementCount = prepareStatementCount;
+    }
+
+    /**
+     * Get the number of transactions completed.
+     *
+     * @return The number of transactions completed.
+     */
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Set the number of transactions completed.
+     *
+     * @param transactionCount The number of transactions completed to set.
+     */
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    /**
+     * Get the most recent slow statements, newest first.
+     *
+     * @return The most recent slow statements, newest first.
+     */
+    public List<SlowQueryDTO> getRecentSlowQueries() {
+        return recentSlowQueries;
+    }
+
+    /**
+     * Set the most recent slow statements, newest first.
+     *
+     * @param recentSlowQueries The most recent slow statements, newest first to set.
+     */
+    public void setRecentSlowQueries(List<SlowQueryDTO> recentSlowQueries) {
+        this.recentSlowQueries = recentSlowQueries;
+    }
+
+    /**
+     * Generate a string representation of the QueryStatisticsDTO object.
+     *
+     * @return A string containing the fields of the QueryStatisticsDTO.
+     */
+    @Override
+    public String toString() {
+        return "QueryStatisticsDTO{" +
+                "statisticsEnabled=" + statisticsEnabled +
+                ", monitorEnabled=" + monitorEnabled +
+                ", slowQueryThresholdMillis=" + slowQueryThresholdMillis +
+                ", statements=" + statements +
+                ", slowStatements=" + slowStatements +
+                ", repeatedStatementWarnings=" + repeatedStatementWarnings +
+                ", statementLimitWarnings=" + statementLimitWarnings +
+                ", queryExecutionCount=" + queryExecutionCount +
+                ", queryExecutionMaxTimeMillis=" + queryExecutionMaxTimeMillis +
+                ", slowestQuery='" + slowestQuery + '\'' +
+                ", entityLoadCount=" + entityLoadCount +
+                ", entityFetchCount=" + entityFetchCount +
+                ", collectionFetchCount=" + collectionFetchCount +
+                ", secondLevelCacheHitCount=" + secondLevelCacheHitCount +
+                ", secondLevelCacheMissCount=" + secondLevelCacheMissCount +
+                ", queryCacheHitCount=" + queryCacheHitCount +
+                ", queryCacheMissCount=" + queryCacheMissCount +
+                ", prepareStatementCount=" + prepareStatementCount +
+                ", transactionCount=" + transactionCount +
+                ", recentSlowQueries=" + recentSlowQueries +
+                '}';
+    }
+}
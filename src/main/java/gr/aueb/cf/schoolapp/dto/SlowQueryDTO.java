@@ -0,0 +1,142 @@
+package gr.aueb.cf.schoolapp.dto;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for a statement that exceeded the slow query threshold.
+ * It encapsulates the SQL, its bound parameters, its execution time and the application method that executed it.
+ */
+public class SlowQueryDTO {
+    private String sql;
+    private String parameters;
+    private long durationMillis;
+    private String origin;
+    private String executedAt;
+
+    /**
+     * Default constructor for creating an empty SlowQueryDTO object.
+     */
+    public SlowQueryDTO() {
+    }
+
+    /**
+     * Parameterized constructor for creating a SlowQueryDTO object with specific data.
+     *
+     * @param sql            The SQL of the statement.
+     * @param parameters     The bound parameters of the statement.
+     * @param durationMillis The execution time of the statement in milliseconds.
+     * @param origin         The application method that executed the statement.
+     * @param executedAt     The time the statement completed, in ISO-8601 format.
+     */
+    public SlowQueryDTO(String sql, String parameters, long durationMillis, String origin, String executedAt) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.durationMillis = durationMillis;
+        this.origin = origin;
+        this.executedAt = executedAt;
+    }
+
+    /**
+     * Get the SQL of the statement.
+     *
+     * @return The SQL of the statement.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Set the SQL of the statement.
+     *
+     * @param sql The SQL of the statement to set.
+     */
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Get the bound parameters of the statement.
+     *
+     * @return The bound parameters of the statement.
+     */
+    public String getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Set the bound parameters of the statement.
+     *
+     * @param parameters The bound parameters of the statement to set.
+     */
+    public void setParameters(String parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * Get the execution time of the statement in milliseconds.
+     *
+     * @return The execution time of the statement in milliseconds.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Set the execution time of the statement in milliseconds.
+     *
+     * @param durationMillis The execution time of the statement in milliseconds to set.
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Get the application method that executed the statement.
+     *
+     * @return The application method that executed the statement.
+     */
+    public String getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Set the application method that executed the statement.
+     *
+     * @param origin The application method that executed the statement to set.
+     */
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * Get the time the statement completed, in ISO-8601 format.
+     *
+     * @return The time the statement completed, in ISO-8601 format.
+     */
+    public String getExecutedAt() {
+        return executedAt;
+    }
+
+    /**
+     * Set the time the statement completed, in ISO-8601 format.
+     *
+     * @param executedAt The time the statement completed to set.
+     */
+    public void setExecutedAt(String executedAt) {
+        this.executedAt = executedAt;
+    }
+
+    /**
+     * Generate a string representation of the SlowQueryDTO object.
+     *
+     * @return A string containing the fields of the SlowQueryDTO.
+     */
+    @Override
+    public String toString() {
+        return "SlowQueryDTO{" +
+                "sql='" + sql + '\'' +
+                ", parameters='" + parameters + '\'' +
+                ", durationMillis=" + durationMillis +
+                ", origin='" + origin + '\'' +
+                ", executedAt='" + executedAt + '\'' +
+                '}';
+    }
+}
@@ -1,9 +1,12 @@
 package gr.aueb.cf.schoolapp.dto;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 /**
  * This class represents a Data Transfer Object (DTO) for teacher-related data.
  * It encapsulates information about a teacher, including their ID, first name, and last name.
  */
+@JsonPropertyOrder({"id", "firstname", "lastname"})
 public class TeacherDTO {
     private Long id;
     private String firstname;
@@ -0,0 +1,97 @@
+package gr.aueb.cf.schoolapp.dto;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for the outcome of a successful login.
+ * It encapsulates the access token to send as "Authorization: Bearer &lt;token&gt;" and its lifetime.
+ */
+public class TokenDTO {
+    private String token;
+    private String tokenType;
+    private long expiresIn;
+
+    /**
+     * Default constructor for creating an empty TokenDTO object.
+     */
+    public TokenDTO() {
+    }
+
+    /**
+     * Parameterized constructor for creating a TokenDTO object with specific data.
+     *
+     * @param token     The signed JSON Web Token.
+     * @param tokenType The type of the token.
+     * @param expiresIn The number of seconds the token is valid for.
+     */
+    public TokenDTO(String token, String tokenType, long expiresIn) {
+        this.token = token;
+        this.tokenType = tokenType;
+        this.expiresIn = expiresIn;
+    }
+
+    /**
+     * Get the signed JSON Web Token.
+     *
+     * @return The signed JSON Web Token.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Set the signed JSON Web Token.
+     *
+     * @param token The signed JSON Web Token to set.
+     */
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Get the type of the token, sent before it in the Authorization header.
+     *
+     * @return The type of the token, sent before it in the Authorization header.
+     */
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    /**
+     * Set the type of the token, sent before it in the Authorization header.
+     *
+     * @param tokenType The type of the token to set.
+     */
+    public void setTokenType(String tokenType) {
+        this.tokenType = tokenType;
+    }
+
+    /**
+     * Get the number of seconds the token is valid for.
+     *
+     * @return The number of seconds the token is valid for.
+     */
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    /**
+     * Set the number of seconds the token is valid for.
+     *
+     * @param expiresIn The lifetime of the token in seconds to set.
+     */
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    /**
+     * Generate a string representation of the TokenDTO object, leaving out the token itself.
+     *
+     * @return A string containing the type and lifetime of the token.
+     */
+    @Override
+    public String toString() {
+        return "TokenDTO{" +
+                "tokenType='" + tokenType + '\'' +
+                ", expiresIn=" + expiresIn +
+                '}';
+    }
+}
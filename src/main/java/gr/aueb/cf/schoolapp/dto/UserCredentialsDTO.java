@@ -1,9 +1,12 @@
 package gr.aueb.cf.schoolapp.dto;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 /**
  * This class represents a Data Transfer Object (DTO) for user credentials data.
  * It encapsulates information about a user's credentials, including their ID, username, and password.
  */
+@JsonPropertyOrder({"id", "username", "password"})
 public class UserCredentialsDTO {
     private Long id;
     private String username;
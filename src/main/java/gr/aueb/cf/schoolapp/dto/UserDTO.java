@@ -0,0 +1,79 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for user data returned to clients.
+ * It encapsulates the ID and username of a user; unlike UserCredentialsDTO it never carries the password.
+ */
+@JsonPropertyOrder({"id", "username"})
+public class UserDTO {
+    private Long id;
+    private String username;
+
+    /**
+     * Default constructor for creating an empty UserDTO object.
+     */
+    public UserDTO() {
+    }
+
+    /**
+     * Parameterized constructor for creating a UserDTO object with specific data.
+     *
+     * @param id       The unique identifier for the user.
+     * @param username The username of the user.
+     */
+    public UserDTO(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+
+    /**
+     * Get the unique identifier of the user.
+     *
+     * @return The user's ID.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Set the unique identifier of the user.
+     *
+     * @param id The user's ID to set.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the username of the user.
+     *
+     * @return The user's username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Set the username of the user.
+     *
+     * @param username The user's username to set.
+     */
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    /**
+     * Generate a string representation of the UserDTO object.
+     *
+     * @return A string containing the user's ID and username.
+     */
+    @Override
+    public String toString() {
+        return "UserDTO{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,101 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import java.time.Instant;
+
+/**
+ * This class represents a Data Transfer Object (DTO) for the version of an entity.
+ * It encapsulates the entity's ID, version and last modification time, which is all
+ * that is needed to validate a cached copy of the entity.
+ */
+public class VersionDTO {
+    private Long id;
+    private long version;
+    private Instant lastModified;
+
+    /**
+     * Default constructor for creating an empty VersionDTO object.
+     */
+    public VersionDTO() {
+    }
+
+    /**
+     * Parameterized constructor for creating a VersionDTO object with specific data.
+     *
+     * @param id           The unique identifier of the entity.
+     * @param version      The version of the entity.
+     * @param lastModified The last modification time of the entity, or null if unknown.
+     */
+    public VersionDTO(Long id, long version, Instant lastModified) {
+        this.id = id;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Get the unique identifier of the entity.
+     *
+     * @return The entity's ID.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Set the unique identifier of the entity.
+     *
+     * @param id The entity's ID to set.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the version of the entity.
+     *
+     * @return The entity's version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the version of the entity.
+     *
+     * @param version The entity's version to set.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Get the last modification time of the entity.
+     *
+     * @return The entity's last modification time, or null if unknown.
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Set the last modification time of the entity.
+     *
+     * @param lastModified The entity's last modification time to set.
+     */
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Generate a string representation of the VersionDTO object.
+     *
+     * @return A string containing the entity's ID, version and last modification time.
+     */
+    @Override
+    public String toString() {
+        return "VersionDTO{" +
+                "id=" + id +
+                ", version=" + version +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
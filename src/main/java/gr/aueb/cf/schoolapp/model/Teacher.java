@@ -1,16 +1,29 @@
 package gr.aueb.cf.schoolapp.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 /**
  * This class represents a model for storing information about teachers.
  */
 @Entity
-@Table(name = "TEACHERS")
+@Table(name = "TEACHERS", indexes = {
+        @Index(name = "IDX_TEACHERS_LASTNAME", columnList = "LASTNAME"),
+        @Index(name = "IDX_TEACHERS_LASTNAME_FIRSTNAME", columnList = "LASTNAME, FIRSTNAME")
+})
+@Cacheable
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teachers")
 public class Teacher {
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "teacher_seq")
+    @SequenceGenerator(name = "teacher_seq", sequenceName = "TEACHERS_SEQ", allocationSize = 50)
     private Long id; // The unique identifier for the teacher.
 
     @Column(name = "FIRSTNAME", length = 50, nullable = true, unique = false)
@@ -19,6 +32,13 @@ public class Teacher {
     @Column(name = "LASTNAME", length = 50, nullable = true, unique = false)
     private String lastname; // The last name of the teacher.
 
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private long version; // Incremented on every update of the teacher.
+
+    @Column(name = "LAST_MODIFIED")
+    private Instant lastModified; // When the teacher was last inserted or updated.
+
     /**
      * Get the unique identifier of the teacher.
      *
@@ -73,6 +93,52 @@ public class Teacher {
         this.lastname = lastname;
     }
 
+    /**
+     * Get the version of the teacher, incremented on every update.
+     *
+     * @return The teacher's version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the version of the teacher.
+     *
+     * @param version The teacher's version to set.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Get the time the teacher was last inserted or updated.
+     *
+     * @return The teacher's last modification time, or null if unknown.
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Set the time the teacher was last inserted or updated.
+     *
+     * @param lastModified The teacher's last modification time to set.
+     */
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Record the modification time before the teacher is inserted or updated.
+     * HTTP dates have a precision of one second, so the time is truncated to seconds.
+     */
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
     /**
      * Generate a string representation of the Teacher object.
      *
@@ -1,22 +1,44 @@
 package gr.aueb.cf.schoolapp.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 /**
  * This class represents a model for storing information about users.
  */
 @Entity
-@Table(name = "USERS")
+@Table(name = "USERS", indexes = {
+        @Index(name = "IDX_USERS_USERNAME", columnList = "USERNAME")
+})
+@Cacheable
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "USERS_SEQ", allocationSize = 50)
     private Long id; // The unique identifier for the user.
 
     @Column(name = "USERNAME", length = 50, nullable = true, unique = false)
     private String username; // The username of the user.
 
-    @Column(name = "PASSWORD", length = 50, nullable = true, unique = false)
-    private String password; // The password associated with the user's account.
+    @Column(name = "PASSWORD", length = 255, nullable = true, unique = false)
+    private String password; // The PBKDF2 hash of the user's password (see PasswordHasher).
+
+    @Column(name = "ROLE", length = 20, nullable = true)
+    private String role; // The role of the user (e.g. "admin"), or null; granted in the database, never by sign-up.
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private long version; // Incremented on every update of the user.
+
+    @Column(name = "LAST_MODIFIED")
+    private Instant lastModified; // When the user was last inserted or updated.
 
     /**
      * Get the unique identifier of the user.
@@ -72,6 +94,70 @@ public class User {
         this.password = password;
     }
 
+    /**
+     * Get the role of the user, which is granted by an administrator in the database.
+     *
+     * @return The user's role, or null for an ordinary user.
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Set the role of the user.
+     *
+     * @param role The user's role to set, or null for an ordinary user.
+     */
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    /**
+     * Get the version of the user, incremented on every update.
+     *
+     * @return The user's version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the version of the user.
+     *
+     * @param version The user's version to set.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Get the time the user was last inserted or updated.
+     *
+     * @return The user's last modification time, or null if unknown.
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Set the time the user was last inserted or updated.
+     *
+     * @param lastModified The user's last modification time to set.
+     */
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Record the modification time before the user is inserted or updated.
+     * HTTP dates have a precision of one second, so the time is truncated to seconds.
+     */
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
     /**
      * Generate a string representation of the User object.
      *
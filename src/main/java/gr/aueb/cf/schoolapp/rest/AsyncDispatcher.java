@@ -0,0 +1,97 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.service.util.DbExecutor;
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.LoggerUtil;
+
+import jakarta.persistence.PersistenceException;
+import javax.enterprise.context.control.RequestContextController;
+import javax.enterprise.inject.spi.CDI;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Resumes suspended requests with work run on the {@link DbExecutor}, so that container
+ * threads do not block on JDBC. Each piece of work runs in its own unit of work and
+ * CDI request context; when the executor is saturated or the work takes too long the
+ * request is answered with 503 Service Unavailable and a Retry-After header.
+ */
+public class AsyncDispatcher {
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    private AsyncDispatcher() {}
+
+    /**
+     * Run the work of a suspended request on the database executor and resume the request with its response.
+     *
+     * @param asyncResponse The suspended request.
+     * @param readOnly      Whether the work only reads.
+     * @param work          The work producing the response, typically a synchronous resource method.
+     */
+    public static void dispatch(AsyncResponse asyncResponse, boolean readOnly, Supplier<Response> work) {
+        AtomicReference<Future<?>> future = new AtomicReference<>();
+        asyncResponse.setTimeoutHandler(response -> {
+            Future<?> queued = future.get();
+            if (queued != null) {
+                queued.cancel(false);
+            }
+            response.resume(unavailable("Request timed out"));
+        });
+        asyncResponse.setTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        try {
+            future.set(DbExecutor.submit(() -> {
+                if (!asyncResponse.isSuspended()) {
+                    return; // Timed out while queued
+                }
+                try {
+                    asyncResponse.resume(run(readOnly, work));
+                } catch (RuntimeException e) {
+                    asyncResponse.resume(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(unavailable("Server busy"));
+        }
+    }
+
+    private static Response run(boolean readOnly, Supplier<Response> work) {
+        RequestContextController requestContext = CDI.current().select(RequestContextController.class).get();
+        requestContext.activate();
+        try {
+            Response response;
+            JPAHelper.beginUnitOfWork(readOnly);
+            try {
+                response = work.get();
+            } catch (RuntimeException e) {
+                JPAHelper.endUnitOfWork(false);
+                throw e;
+            }
+
+            try {
+                JPAHelper.endUnitOfWork(response.getStatus() < 400);
+            } catch (PersistenceException e) {
+                LoggerUtil.getCurrentLogger().log(Level.WARNING, "Unit of work commit failed: {0}", e.getMessage());
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Transaction failed").build();
+            }
+            return response;
+        } finally {
+            requestContext.deactivate();
+        }
+    }
+
+    private static Response unavailable(String message) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .entity(message)
+                .build();
+    }
+}
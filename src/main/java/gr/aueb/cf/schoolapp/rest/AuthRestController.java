@@ -0,0 +1,90 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.dto.TokenDTO;
+import gr.aueb.cf.schoolapp.dto.UserCredentialsDTO;
+import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.IUserService;
+import gr.aueb.cf.schoolapp.service.exceptions.InvalidCredentialsException;
+import gr.aueb.cf.schoolapp.service.util.JwtUtil;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * This class serves as a RESTful web service for logging in.
+ */
+@Path("/auth")
+public class AuthRestController {
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    @Inject
+    private IUserService userService; // Injecting the user service for checking credentials.
+
+    /**
+     * Checks the credentials of a user and issues a token for the {@link Secured} resources,
+     * carrying the user's role for the {@link Roles#ADMIN} ones.
+     * This is deliberately not a unit of work: the password is verified with no connection held,
+     * and the request is suspended meanwhile, so no container thread waits for the hash.
+     *
+     * @param dto           The UserCredentialsDTO object containing the username and password.
+     * @param asyncResponse The suspended response, resumed with a JSON response containing a TokenDTO object,
+     *                      401 if the credentials are invalid, or 503 if passwords cannot be verified now.
+     */
+    @Path("/login")
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public void login(UserCredentialsDTO dto, @Suspended AsyncResponse asyncResponse) {
+        if (dto == null || dto.getUsername() == null || dto.getPassword() == null) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST).entity("Username and password are required").build());
+            return;
+        }
+        try {
+            userService.authenticate(dto.getUsername(), dto.getPassword()).whenComplete((user, e) -> {
+                Throwable cause = (e instanceof CompletionException) ? e.getCause() : e;
+                if (cause == null) {
+                    asyncResponse.resume(issue(user));
+                } else if (cause instanceof InvalidCredentialsException) {
+                    asyncResponse.resume(unauthorized());
+                } else if (cause instanceof RejectedExecutionException) {
+                    asyncResponse.resume(busy());
+                } else {
+                    asyncResponse.resume(cause);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(busy());
+        }
+    }
+
+    private Response issue(User user) {
+        String token = JwtUtil.issue(user.getId(), user.getUsername(), user.getRole());
+        return Response.status(Response.Status.OK)
+                .entity(new TokenDTO(token, "Bearer", JwtUtil.getTtlSeconds()))
+                .build();
+    }
+
+    private Response unauthorized() {
+        return Response.status(Response.Status.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+                .entity("Invalid username or password")
+                .build();
+    }
+
+    private Response busy() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .entity("Server busy")
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import gr.aueb.cf.schoolapp.service.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Provider;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests to {@link Secured} resources that do not carry a valid bearer token, and
+ * exposes the authenticated user and the role of the token (see {@link Roles}) through the
+ * request's SecurityContext, which the {@link RolesAllowedFeature} checks.
+ * <p>
+ * Verified tokens are kept in a bounded Caffeine cache ("schoolapp.jwt.cacheSize", 10000 tokens)
+ * keyed by the SHA-256 of the token, so the signature is checked and the claims parsed once per
+ * token rather than once per request. Lookups take no lock, and each entry expires when its token
+ * does. Authentication never touches the database.
+ */
+@Provider
+@Secured
+@Priority(Priorities.AUTHENTICATION)
+public class AuthenticationFilter implements ContainerRequestFilter {
+    private static final String BEARER = "Bearer ";
+    private static final int CACHE_SIZE = Integer.getInteger("schoolapp.jwt.cacheSize", 10000);
+    private static final Cache<String, AuthenticatedUser> verified = Caffeine.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .expireAfter(new TokenExpiry())
+            .build();
+
+    /**
+     * Authenticates the request from its bearer token, or aborts it with 401 Unauthorized.
+     *
+     * @param requestContext The request context.
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String authorization = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            requestContext.abortWith(unauthorized());
+            return;
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+
+        AuthenticatedUser user = authenticate(token);
+        if (user == null) {
+            requestContext.abortWith(unauthorized());
+            return;
+        }
+        boolean secure = requestContext.getSecurityContext().isSecure();
+        requestContext.setSecurityContext(new TokenSecurityContext(user, secure));
+    }
+
+    private static AuthenticatedUser authenticate(String token) {
+        String key = sha256(token);
+        AuthenticatedUser user = verified.getIfPresent(key);
+        if (user != null) {
+            return user;
+        }
+
+        try {
+            Claims claims = JwtUtil.verify(token);
+            user = new AuthenticatedUser(Long.valueOf(claims.getSubject()), claims.get(JwtUtil.USERNAME_CLAIM, String.class),
+                    claims.get(JwtUtil.ROLE_CLAIM, String.class), claims.getExpiration().getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        verified.put(key, user);
+        return user;
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Response unauthorized() {
+        return Response.status(Response.Status.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+                .entity("Not authenticated")
+                .build();
+    }
+
+    /**
+     * Expires a cached user when its token expires.
+     */
+    private static final class TokenExpiry implements Expiry<String, AuthenticatedUser> {
+        @Override
+        public long expireAfterCreate(String key, AuthenticatedUser user, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(user.expiresAt - System.currentTimeMillis());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, AuthenticatedUser user, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, AuthenticatedUser user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * A user whose token has been verified, the role the token carries, and when the token expires.
+     */
+    private static final class AuthenticatedUser implements Principal {
+        private final Long id;
+        private final String username;
+        private final String role;
+        private final long expiresAt;
+
+        private AuthenticatedUser(Long id, String username, String role, long expiresAt) {
+            this.id = id;
+            this.username = username;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public String getName() {
+            return username;
+        }
+
+        @Override
+        public String toString() {
+            return "AuthenticatedUser{id=" + id + ", username='" + username + "', role=" + role + "}";
+        }
+    }
+
+    /**
+     * The security context of a request authenticated with a bearer token.
+     */
+    private static final class TokenSecurityContext implements SecurityContext {
+        private final AuthenticatedUser user;
+        private final boolean secure;
+
+        private TokenSecurityContext(AuthenticatedUser user, boolean secure) {
+            this.user = user;
+            this.secure = secure;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return user;
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return (role != null) && role.equals(user.role);
+        }
+
+        @Override
+        public boolean isSecure() {
+            return secure;
+        }
+
+        @Override
+        public String getAuthenticationScheme() {
+            return "Bearer";
+        }
+    }
+}
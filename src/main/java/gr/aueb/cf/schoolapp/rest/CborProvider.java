@@ -0,0 +1,120 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Set;
+
+/**
+ * Reads and writes entities as CBOR (RFC 8949), a binary encoding of the same data model as JSON,
+ * for clients that send or accept "application/cbor". It is smaller than JSON and cheaper to
+ * encode and decode, while the DTOs keep their JSON property names and order.
+ */
+@Provider
+@Consumes(CborProvider.APPLICATION_CBOR)
+@Produces(CborProvider.APPLICATION_CBOR)
+public class CborProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    /**
+     * The CBOR media type.
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    /**
+     * The CBOR media type.
+     */
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+    // Entities already in their wire form, left to the built-in providers
+    private static final Set<Class<?>> UNTOUCHABLES = Set.of(String.class, byte[].class, char[].class,
+            InputStream.class, Reader.class, OutputStream.class, Writer.class, StreamingOutput.class, Response.class);
+
+    /**
+     * Check whether an entity of a type can be read.
+     *
+     * @param type        The class of the entity.
+     * @param genericType The type of the entity.
+     * @param annotations The annotations of the parameter.
+     * @param mediaType   The media type of the request.
+     * @return True if the type is not one of the raw types handled by the built-in providers.
+     */
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isMapped(type);
+    }
+
+    /**
+     * Read an entity from a CBOR request body.
+     *
+     * @param type         The class of the entity.
+     * @param genericType  The type of the entity.
+     * @param annotations  The annotations of the parameter.
+     * @param mediaType    The media type of the request.
+     * @param httpHeaders  The request headers.
+     * @param entityStream The request body, which is not closed.
+     * @return The entity.
+     * @throws IOException If the body is not valid CBOR for the type.
+     */
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = ObjectMapperResolver.getMapper(APPLICATION_CBOR_TYPE);
+        return mapper.readerFor(mapper.constructType(genericType)).readValue(entityStream);
+    }
+
+    /**
+     * Check whether an entity of a type can be written.
+     *
+     * @param type        The class of the entity.
+     * @param genericType The type of the entity.
+     * @param annotations The annotations of the resource method.
+     * @param mediaType   The media type of the response.
+     * @return True if the type is not one of the raw types handled by the built-in providers.
+     */
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isMapped(type);
+    }
+
+    /**
+     * Write an entity as a CBOR response body.
+     *
+     * @param value        The entity.
+     * @param type         The class of the entity.
+     * @param genericType  The type of the entity.
+     * @param annotations  The annotations of the resource method.
+     * @param mediaType    The media type of the response.
+     * @param httpHeaders  The response headers.
+     * @param entityStream The response body, which is not closed.
+     * @throws IOException If the entity cannot be written.
+     */
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        ObjectMapper mapper = ObjectMapperResolver.getMapper(APPLICATION_CBOR_TYPE);
+        mapper.writerFor(mapper.constructType(genericType)).writeValue(entityStream, value);
+    }
+
+    private static boolean isMapped(Class<?> type) {
+        for (Class<?> untouchable : UNTOUCHABLES) {
+            if (untouchable.isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,288 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compresses text and JSON responses with gzip or deflate, as negotiated with the request's
+ * Accept-Encoding header.
+ * <p>
+ * The body is still streamed: only its first "schoolapp.compression.minSize" bytes (1024) are
+ * held back, and a body that ends before that is sent as is, since compressing it would save
+ * little or nothing. Deflaters are pooled, because each one holds native zlib memory that is
+ * otherwise allocated and freed per response. The compression level is "schoolapp.compression.level"
+ * (zlib's default, 6).
+ * <p>
+ * A compressed representation is not byte-identical to the uncompressed one, so a strong ETag
+ * is made weak, which If-None-Match still matches. If-Match on updates accepts the weak form of
+ * an entity's version ETag too (see {@link ConditionalResponses#expectedVersion(String, Long)}).
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final int MIN_SIZE = Integer.getInteger("schoolapp.compression.minSize", 1024);
+    private static final int LEVEL = Integer.getInteger("schoolapp.compression.level", Deflater.DEFAULT_COMPRESSION);
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private static final int BUFFER_SIZE = 8192;
+    // gzip wraps raw deflate data in its own header and trailer; HTTP "deflate" is the zlib format
+    private static final BlockingQueue<Deflater> gzipDeflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Deflater> zlibDeflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    /**
+     * Writes the response entity, compressed if the client accepts it and the body is large enough.
+     *
+     * @param context The writer interceptor context.
+     * @throws IOException If the entity cannot be written.
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (!isCompressible(context.getMediaType()) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String encoding = negotiate(requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        ThresholdOutputStream body = new ThresholdOutputStream(context.getOutputStream(), encoding, headers);
+        context.setOutputStream(body);
+        try {
+            context.proceed();
+            body.finish();
+        } finally {
+            body.release();
+        }
+    }
+
+    private static boolean isCompressible(MediaType mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+        String subtype = mediaType.getSubtype().toLowerCase(Locale.ROOT);
+        return "text".equalsIgnoreCase(mediaType.getType())
+                || subtype.equals("json") || subtype.endsWith("+json")
+                || subtype.equals("xml") || subtype.endsWith("+xml");
+    }
+
+    /**
+     * The accepted coding with the highest quality, gzip winning ties; null if neither is accepted.
+     */
+    private static String negotiate(List<String> acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String header : acceptEncoding) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                double quality = quality(parts);
+                if (name.equals(GZIP) || name.equals("x-gzip")) {
+                    gzip = quality;
+                } else if (name.equals(DEFLATE)) {
+                    deflate = quality;
+                } else if (name.equals("*")) {
+                    any = quality;
+                }
+            }
+        }
+        gzip = (gzip < 0) ? any : gzip;
+        deflate = (deflate < 0) ? any : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return (gzip >= deflate) ? GZIP : DEFLATE;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static Deflater borrow(String encoding) {
+        BlockingQueue<Deflater> pool = GZIP.equals(encoding) ? gzipDeflaters : zlibDeflaters;
+        Deflater deflater = pool.poll();
+        return (deflater != null) ? deflater : new Deflater(LEVEL, GZIP.equals(encoding));
+    }
+
+    private static void giveBack(String encoding, Deflater deflater) {
+        deflater.reset();
+        BlockingQueue<Deflater> pool = GZIP.equals(encoding) ? gzipDeflaters : zlibDeflaters;
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Holds back the first bytes of the body until it is known to reach the minimum size; then sets
+     * the Content-Encoding header (the response is not committed before its first byte is written)
+     * and compresses the rest as it is written.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+        private final OutputStream target;
+        private final String encoding;
+        private final MultivaluedMap<String, Object> headers;
+        private byte[] pending = new byte[Math.max(MIN_SIZE, 1)];
+        private int pendingSize;
+        private Deflater deflater;
+        private OutputStream compressed;
+        private boolean finished;
+
+        private ThresholdOutputStream(OutputStream target, String encoding, MultivaluedMap<String, Object> headers) {
+            this.target = target;
+            this.encoding = encoding;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (compressed != null) {
+                compressed.write(bytes, offset, length);
+                return;
+            }
+            if (pendingSize + length <= MIN_SIZE) {
+                System.arraycopy(bytes, offset, pending, pendingSize, length);
+                pendingSize += length;
+                return;
+            }
+            startCompressing();
+            compressed.write(bytes, offset, length);
+        }
+
+        /**
+         * Flushing does not force out a partial deflate block; it would only hurt the compression ratio.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (compressed != null) {
+                compressed.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            target.close();
+        }
+
+        private void startCompressing() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            weakenEntityTag();
+            deflater = borrow(encoding);
+            compressed = GZIP.equals(encoding)
+                    ? new GzipOutputStream(target, deflater)
+                    : new DeflaterOutputStream(target, deflater, BUFFER_SIZE);
+            compressed.write(pending, 0, pendingSize);
+            pending = null;
+        }
+
+        private void weakenEntityTag() {
+            Object tag = headers.getFirst(HttpHeaders.ETAG);
+            if (tag instanceof EntityTag && !((EntityTag) tag).isWeak()) {
+                headers.putSingle(HttpHeaders.ETAG, new EntityTag(((EntityTag) tag).getValue(), true));
+            } else if (tag instanceof String && ((String) tag).startsWith("\"")) {
+                headers.putSingle(HttpHeaders.ETAG, "W/" + tag);
+            }
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (compressed != null) {
+                ((DeflaterOutputStream) compressed).finish();
+            } else if (pendingSize > 0) {
+                target.write(pending, 0, pendingSize);
+            }
+        }
+
+        private void release() {
+            if (deflater != null) {
+                giveBack(encoding, deflater);
+                deflater = null;
+            }
+        }
+    }
+
+    /**
+     * The gzip format around a supplied (raw) Deflater, which GZIPOutputStream does not accept.
+     */
+    private static final class GzipOutputStream extends DeflaterOutputStream {
+        private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        private GzipOutputStream(OutputStream out, Deflater deflater) throws IOException {
+            super(out, deflater, BUFFER_SIZE);
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            super.write(bytes, offset, length);
+            crc.update(bytes, offset, length);
+            size += length;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (def.finished()) {
+                return;
+            }
+            super.finish();
+            writeInt((int) crc.getValue());
+            writeInt((int) size);
+        }
+
+        private void writeInt(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Builds responses carrying validators (ETag, Last-Modified) and answers conditional
+ * GET requests (If-None-Match, If-Modified-Since) with 304 Not Modified.
+ * Clients must revalidate on every use (Cache-Control: no-cache), so a poll that finds
+ * nothing changed costs a version lookup instead of a full load and a response body.
+ * <p>
+ * Each representation (JSON, CBOR) of a version has its own strong ETag, and responses
+ * carry Vary: Accept, so caches never answer a request for one with the other.
+ */
+public class ConditionalResponses {
+    private static final CacheControl REVALIDATE = CacheControl.valueOf("no-cache");
+    private static final long NO_VERSION = -1L;
+
+    private ConditionalResponses() {}
+
+    /**
+     * Evaluate the preconditions of a request against the current version of an entity,
+     * in the representation chosen from its Accept header.
+     *
+     * @param request The request.
+     * @param version The current version of the entity.
+     * @return A 304 Not Modified response if the client's copy is current, or null if the entity must be sent.
+     */
+    public static Response notModified(Request request, VersionDTO version) {
+        EntityTag tag = tagOf(version, ObjectMapperResolver.negotiate(request));
+        Response.ResponseBuilder builder = (version.getLastModified() == null)
+                ? request.evaluatePreconditions(tag)
+                : request.evaluatePreconditions(Date.from(version.getLastModified()), tag);
+        return (builder == null) ? null
+                : builder.tag(tag).cacheControl(REVALIDATE).variants(ObjectMapperResolver.VARIANTS).build();
+    }
+
+    /**
+     * Build a 200 OK response for an entity in the representation chosen from the Accept header,
+     * carrying its version as a strong ETag and its last modification time as Last-Modified.
+     *
+     * @param request The request.
+     * @param entity  The entity.
+     * @param version The version of the entity.
+     * @return The response.
+     */
+    public static Response ok(Request request, Object entity, VersionDTO version) {
+        MediaType type = ObjectMapperResolver.negotiate(request);
+        Response.ResponseBuilder builder = Response.status(Response.Status.OK).entity(entity).type(type)
+                .tag(tagOf(version, type))
+                .cacheControl(REVALIDATE)
+                .variants(ObjectMapperResolver.VARIANTS);
+        if (version.getLastModified() != null) {
+            builder.lastModified(Date.from(version.getLastModified()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build a JSON or CBOR response whose strong ETag is a hash of its body, or a 304 Not Modified
+     * response if the client already has that body. Used where there is no single version
+     * to compare, such as result pages: the body is serialized once, hashed, and sent as is.
+     * The representation is chosen from the Accept header, so each one has its own ETag.
+     *
+     * @param request The request.
+     * @param entity  The entity to serialize.
+     * @return The response.
+     */
+    public static Response okWithContentTag(Request request, Object entity) {
+        MediaType type = ObjectMapperResolver.negotiate(request);
+        byte[] body;
+        try {
+            body = ObjectMapperResolver.getMapper(type).writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        EntityTag tag = new EntityTag(hash(body));
+        Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+        if (builder == null) {
+            builder = Response.status(Response.Status.OK).entity(body).type(type);
+        }
+        return builder.tag(tag).cacheControl(REVALIDATE).variants(ObjectMapperResolver.VARIANTS).build();
+    }
+
+    /**
+     * Extract the version an update is based on from its If-Match header, which holds an ETag
+     * previously returned for the entity, in any representation. The ETag may be weak: the
+     * {@link CompressionInterceptor} weakens the ETag of a compressed response, and these ETags
+     * name an entity version, whatever the bytes it was sent as.
+     *
+     * @param ifMatch The If-Match header, or null.
+     * @param id      The ID of the entity being updated.
+     * @return The expected version, null if any version may be updated (no header, or "*"),
+     *         or a version no entity has if the header does not hold an ETag of this entity.
+     */
+    public static Long expectedVersion(String ifMatch, Long id) {
+        if ((ifMatch == null) || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String prefix = id + "-";
+        try {
+            EntityTag tag = EntityTag.valueOf(ifMatch.trim());
+            if (!tag.getValue().startsWith(prefix)) {
+                return NO_VERSION;
+            }
+            String version = tag.getValue().substring(prefix.length());
+            int suffix = version.indexOf('-');
+            return Long.parseLong((suffix < 0) ? version : version.substring(0, suffix));
+        } catch (IllegalArgumentException e) {
+            return NO_VERSION; // Includes NumberFormatException
+        }
+    }
+
+    // "id-version" for JSON, "id-version-cbor" for CBOR
+    private static EntityTag tagOf(VersionDTO version, MediaType type) {
+        String value = version.getId() + "-" + version.getVersion();
+        return MediaType.APPLICATION_JSON_TYPE.isCompatible(type) ? new EntityTag(value)
+                : new EntityTag(value + "-" + type.getSubtype());
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
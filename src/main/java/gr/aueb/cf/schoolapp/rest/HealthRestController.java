@@ -0,0 +1,43 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * This class exposes the health of the application to load balancers and orchestrators.
+ */
+@Path("/health")
+public class HealthRestController {
+
+    /**
+     * Reports whether the application has been warmed up and can serve requests. While it is not,
+     * e.g. because the database was unavailable at startup, a call retries the warm-up, unless
+     * another call is already retrying it; it then answers 503 at once.
+     *
+     * @return 200 if the application is ready, otherwise 503 with the reason.
+     */
+    @Path("/ready")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getReadiness() {
+        if (StartupListener.isReady() || StartupListener.warmUp()) {
+            return Response.status(Response.Status.OK).entity("READY").build();
+        }
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("NOT READY: " + StartupListener.getFailure()).build();
+    }
+
+    /**
+     * Reports that the application is running, without touching the database.
+     *
+     * @return 200.
+     */
+    @Path("/live")
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getLiveness() {
+        return Response.status(Response.Status.OK).entity("UP").build();
+    }
+}
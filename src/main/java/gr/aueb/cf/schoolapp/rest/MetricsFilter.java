@@ -0,0 +1,185 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.service.util.LatencyHistogram;
+import gr.aueb.cf.schoolapp.service.util.Metrics;
+
+import javax.annotation.Priority;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.OPTIONS;
+import javax.ws.rs.PATCH;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency, the serialization time and the response status of every request,
+ * per route ("GET /teachers/{teacherId}"). The request is timed from before resource
+ * matching until its entity is written, so the figures include the unit of work commit
+ * and the serialization of the response.
+ * <p>
+ * The metrics of a route are looked up once per request by its resource method; recording
+ * itself does not allocate.
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 100)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+    private static final String ROUTE_PROPERTY = MetricsFilter.class.getName() + ".route";
+    private static final String UNMATCHED = "unmatched";
+    private static final ConcurrentMap<Method, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private static final RouteMetrics unmatched = new RouteMetrics(UNMATCHED);
+    private static final List<Class<? extends Annotation>> HTTP_METHODS =
+            List.of(GET.class, POST.class, PUT.class, DELETE.class, PATCH.class, HEAD.class, OPTIONS.class);
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    /**
+     * Stores the time the request was received.
+     *
+     * @param requestContext The request context.
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    /**
+     * Counts the response status of the request and, if the response has no entity to
+     * write, records the request latency.
+     *
+     * @param requestContext  The request context.
+     * @param responseContext The response context.
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (start == null) {
+            return;
+        }
+        RouteMetrics route = routeOf(resourceInfo.getResourceMethod());
+        route.countStatus(responseContext.getStatus());
+        if (responseContext.hasEntity()) {
+            requestContext.setProperty(ROUTE_PROPERTY, route);
+        } else {
+            route.requests.record(System.nanoTime() - (Long) start);
+        }
+    }
+
+    /**
+     * Writes the response entity and records the serialization time and the request latency.
+     *
+     * @param context The writer interceptor context.
+     * @throws IOException If the entity cannot be written.
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object route = context.getProperty(ROUTE_PROPERTY);
+        if (route == null) {
+            context.proceed();
+            return;
+        }
+        long writeStart = System.nanoTime();
+        try {
+            context.proceed();
+        } finally {
+            long end = System.nanoTime();
+            RouteMetrics metrics = (RouteMetrics) route;
+            metrics.serialization.record(end - writeStart);
+            metrics.requests.record(end - (Long) context.getProperty(START_PROPERTY));
+        }
+    }
+
+    private static RouteMetrics routeOf(Method method) {
+        if (method == null) {
+            return unmatched;
+        }
+        RouteMetrics route = routes.get(method);
+        if (route == null) {
+            route = routes.computeIfAbsent(method, m -> new RouteMetrics(routeName(m)));
+        }
+        return route;
+    }
+
+    private static String routeName(Method method) {
+        StringBuilder route = new StringBuilder();
+        for (Class<? extends Annotation> verb : HTTP_METHODS) {
+            if (method.isAnnotationPresent(verb)) {
+                route.append(verb.getSimpleName()).append(' ');
+                break;
+            }
+        }
+        appendPath(route, method.getDeclaringClass().getAnnotation(Path.class));
+        appendPath(route, method.getAnnotation(Path.class));
+        return route.toString();
+    }
+
+    private static void appendPath(StringBuilder route, Path path) {
+        if (path == null) {
+            return;
+        }
+        String value = path.value();
+        if (!value.startsWith("/")) {
+            route.append('/');
+        }
+        route.append(value);
+        if (route.length() > 1 && route.charAt(route.length() - 1) == '/') {
+            route.setLength(route.length() - 1);
+        }
+    }
+
+    /**
+     * The metrics of one route.
+     */
+    private static final class RouteMetrics {
+        private static final int MAX_STATUS = 600;
+
+        private final String route;
+        private final LatencyHistogram requests;
+        private final LatencyHistogram serialization;
+        private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(MAX_STATUS);
+
+        private RouteMetrics(String route) {
+            this.route = route;
+            String labels = Metrics.labels("route", route);
+            this.requests = Metrics.timer("schoolapp_http_request_duration_seconds",
+                    "Latency of HTTP requests, from receipt until the response is written", labels);
+            this.serialization = Metrics.timer("schoolapp_http_serialization_duration_seconds",
+                    "Time spent writing HTTP response entities", labels);
+        }
+
+        private void countStatus(int status) {
+            int index = (status >= 0 && status < MAX_STATUS) ? status : 0;
+            LongAdder counter = statuses.get(index);
+            if (counter == null) {
+                LongAdder registered = Metrics.counter("schoolapp_http_responses_total",
+                        "Number of HTTP responses", Metrics.labels("route", route, "status", String.valueOf(status)));
+                statuses.compareAndSet(index, null, registered);
+                counter = statuses.get(index);
+            }
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.Metrics;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class exposes the application metrics in the Prometheus text format.
+ */
+@Path("/metrics")
+public class MetricsRestController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    static {
+        poolGauge("schoolapp_db_pool_active_connections", "Connections in use", HikariPoolMXBean::getActiveConnections);
+        poolGauge("schoolapp_db_pool_idle_connections", "Idle connections", HikariPoolMXBean::getIdleConnections);
+        poolGauge("schoolapp_db_pool_connections", "Open connections", HikariPoolMXBean::getTotalConnections);
+        poolGauge("schoolapp_db_pool_pending_threads", "Threads waiting for a connection",
+                HikariPoolMXBean::getThreadsAwaitingConnection);
+    }
+
+    /**
+     * Renders all the metrics recorded so far.
+     *
+     * @return A text response in the Prometheus exposition format.
+     */
+    @Path("/")
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public Response getMetrics() {
+        return Response.status(Response.Status.OK).entity(Metrics.scrape()).build();
+    }
+
+    private static void poolGauge(String name, String help, ToIntFunction<HikariPoolMXBean> value) {
+        Metrics.gauge(name, help, "", () -> {
+            try {
+                return value.applyAsInt(JPAHelper.getConnectionPoolStatistics());
+            } catch (RuntimeException e) {
+                // The pool is not started yet (or cannot be reached)
+                return Double.NaN;
+            }
+        });
+    }
+}
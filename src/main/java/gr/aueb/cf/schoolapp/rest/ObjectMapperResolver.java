@@ -0,0 +1,193 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import gr.aueb.cf.schoolapp.dto.PageDTO;
+import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.dto.TokenDTO;
+import gr.aueb.cf.schoolapp.dto.UserDTO;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Provides the one ObjectMapper used for all JSON responses, by the Jackson entity provider
+ * and by the resources that write JSON themselves, and its CBOR counterpart used by the
+ * {@link CborProvider}.
+ * <p>
+ * The mappers are configured and warmed up once: the DTOs returned in lists (TeacherDTO, UserDTO)
+ * are written by hand-written serializers with pre-encoded field names instead of reflective bean
+ * serializers, parsers and generators do not close the request or response stream, and buffers
+ * are recycled per thread.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class ObjectMapperResolver implements ContextResolver<ObjectMapper> {
+    /**
+     * The representations of the resources that offer both, JSON first so that it is chosen when
+     * the client accepts either (e.g. browsers, which accept any type with a lower quality).
+     */
+    public static final List<Variant> VARIANTS = Variant.mediaTypes(
+            MediaType.APPLICATION_JSON_TYPE, CborProvider.APPLICATION_CBOR_TYPE).build();
+
+    private static final ObjectMapper MAPPER = configure(JsonMapper.builder(JsonFactory.builder()
+            .enable(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING)
+            .build()));
+    private static final ObjectMapper CBOR_MAPPER = configure(CBORMapper.builder(CBORFactory.builder()
+            .enable(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING)
+            .build()));
+
+    static {
+        warmUp();
+    }
+
+    /**
+     * Get the mapper for a type.
+     *
+     * @param type The type to be read or written.
+     * @return The shared mapper.
+     */
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return MAPPER;
+    }
+
+    /**
+     * Get the shared mapper, for code writing JSON outside the entity providers.
+     *
+     * @return The shared mapper.
+     */
+    public static ObjectMapper getMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Get the shared mapper for a media type.
+     *
+     * @param mediaType The media type to be read or written.
+     * @return The CBOR mapper for CBOR, otherwise the JSON mapper.
+     */
+    public static ObjectMapper getMapper(MediaType mediaType) {
+        return CborProvider.APPLICATION_CBOR_TYPE.isCompatible(mediaType) ? CBOR_MAPPER : MAPPER;
+    }
+
+    /**
+     * Choose the representation of a response from the request's Accept header.
+     *
+     * @param request The request.
+     * @return CBOR if the client prefers it, otherwise JSON.
+     */
+    public static MediaType negotiate(Request request) {
+        Variant variant = request.selectVariant(VARIANTS);
+        return (variant == null) ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+    }
+
+    /**
+     * Serialize one of each response type, so that the first requests do not pay for
+     * building and caching their serializers.
+     */
+    public static void warmUp() {
+        List<TeacherDTO> teachers = List.of(new TeacherDTO(1L, "Firstname", "Lastname"), new TeacherDTO());
+        List<UserDTO> users = List.of(new UserDTO(1L, "username"), new UserDTO());
+        try {
+            for (ObjectMapper mapper : List.of(MAPPER, CBOR_MAPPER)) {
+                mapper.writeValueAsBytes(new PageDTO<>(teachers, "next"));
+                mapper.writeValueAsBytes(new PageDTO<>(users, null));
+                mapper.writeValueAsBytes(teachers.get(0));
+                mapper.writeValueAsBytes(users.get(0));
+                mapper.writeValueAsBytes(new TokenDTO("token", "Bearer", 3600));
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <M extends ObjectMapper, B extends MapperBuilder<M, B>> M configure(B builder) {
+        SimpleModule serializers = new SimpleModule("SchoolAppSerializers")
+                .addSerializer(TeacherDTO.class, new TeacherDTOSerializer())
+                .addSerializer(UserDTO.class, new UserDTOSerializer());
+        return builder
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .addModule(serializers)
+                .build();
+    }
+
+    /**
+     * Writes a TeacherDTO as {"id":..,"firstname":..,"lastname":..}, the same JSON as the bean serializer.
+     */
+    private static final class TeacherDTOSerializer extends StdSerializer<TeacherDTO> {
+        private static final long serialVersionUID = 1L;
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString FIRSTNAME = new SerializedString("firstname");
+        private static final SerializedString LASTNAME = new SerializedString("lastname");
+
+        private TeacherDTOSerializer() {
+            super(TeacherDTO.class);
+        }
+
+        @Override
+        public void serialize(TeacherDTO teacher, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(teacher);
+            writeId(generator, ID, teacher.getId());
+            generator.writeFieldName(FIRSTNAME);
+            generator.writeString(teacher.getFirstname());
+            generator.writeFieldName(LASTNAME);
+            generator.writeString(teacher.getLastname());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a UserDTO as {"id":..,"username":..}, the same JSON as the bean serializer.
+     */
+    private static final class UserDTOSerializer extends StdSerializer<UserDTO> {
+        private static final long serialVersionUID = 1L;
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString USERNAME = new SerializedString("username");
+
+        private UserDTOSerializer() {
+            super(UserDTO.class);
+        }
+
+        @Override
+        public void serialize(UserDTO user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(user);
+            writeId(generator, ID, user.getId());
+            generator.writeFieldName(USERNAME);
+            generator.writeString(user.getUsername());
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeId(JsonGenerator generator, SerializedString name, Long id) throws IOException {
+        generator.writeFieldName(name);
+        if (id == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(id);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package gr.aueb.cf.schoolapp.rest;
+
+/**
+ * The roles a token can carry, for {@link javax.annotation.security.RolesAllowed}.
+ * A user's role is stored in the USERS.ROLE column and is granted by an administrator
+ * in the database; signing up never grants one.
+ */
+public final class Roles {
+    /**
+     * May read and configure the query statistics and delete in bulk.
+     */
+    public static final String ADMIN = "admin";
+
+    private Roles() {}
+}
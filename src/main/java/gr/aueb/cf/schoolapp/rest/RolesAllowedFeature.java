@@ -0,0 +1,15 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
+
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Enforces {@link javax.annotation.security.RolesAllowed} on resource methods and classes with
+ * the request's SecurityContext, which the {@link AuthenticationFilter} sets from the token.
+ * A user without the role gets 403 Forbidden. Jersey's feature is not a {@code @Provider}, so
+ * this subclass lets the provider scan register it.
+ */
+@Provider
+public class RolesAllowedFeature extends RolesAllowedDynamicFeature {
+}
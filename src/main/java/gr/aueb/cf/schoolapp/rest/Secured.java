@@ -0,0 +1,19 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import javax.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a resource method (or every method of a resource class) that requires a valid
+ * token from {@code POST /auth/login} in an "Authorization: Bearer" header.
+ *
+ * @see AuthenticationFilter
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Secured {
+}
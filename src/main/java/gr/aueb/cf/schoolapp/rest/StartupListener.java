@@ -0,0 +1,171 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.dao.ITeacherDAO;
+import gr.aueb.cf.schoolapp.dao.IUserDAO;
+import gr.aueb.cf.schoolapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.schoolapp.dao.UserDAOImpl;
+import gr.aueb.cf.schoolapp.service.util.DbExecutor;
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
+import gr.aueb.cf.schoolapp.service.util.LoggerUtil;
+import gr.aueb.cf.schoolapp.service.util.PasswordHasher;
+import gr.aueb.cf.schoolapp.service.util.QueryPlanVerifier;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * Prepares the application when it is deployed, before it serves requests, and releases its
+ * resources when it is undeployed.
+ * <p>
+ * At startup it builds the EntityManagerFactory (metamodel, schema update, second-level cache),
+ * opens the pool's idle connections, runs each read query of the DAOs once, so that Hibernate has
+ * translated them and the JIT has seen them, and serializes the response DTOs. Unless
+ * "schoolapp.verifyQueryPlans" is false, the plans of those queries are checked with the
+ * {@link QueryPlanVerifier}, and a full scan fails the warm-up. The application reports ready
+ * ({@code GET /api/health/ready}) only after that. If the database is unavailable, deployment
+ * still succeeds and the warm-up is retried by the readiness checks, one at a time:
+ * checks arriving during a retry report not ready at once instead of waiting for it.
+ */
+@WebListener
+public class StartupListener implements ServletContextListener {
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static volatile boolean ready;
+    private static final String STOPPING = "Stopping";
+    private static volatile String failure = "Starting";
+
+    /**
+     * Warm up the application.
+     *
+     * @param event The servlet context event.
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        warmUp();
+    }
+
+    /**
+     * Stop the executors, close the EntityManagerFactory and its connection pool, and close the log.
+     *
+     * @param event The servlet context event.
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        // Set before ready is cleared, so that readiness checks do not start a warm-up meanwhile
+        failure = STOPPING;
+        ready = false;
+        DbExecutor.shutdown();
+        PasswordHasher.shutdown();
+        JPAHelper.closeEMF();
+        LoggerUtil.getCurrentLogger().info("Application stopped");
+        LoggerUtil.close();
+    }
+
+    /**
+     * Check whether the application has been warmed up and can serve requests.
+     *
+     * @return True if the application is ready.
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Get the reason the application is not ready.
+     *
+     * @return The reason, or null if the application is ready.
+     */
+    public static String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Warm up the application, unless it is ready already or is stopping. Only one warm-up runs
+     * at a time; callers arriving meanwhile do not wait for it (which could take the pool's
+     * connection timeout) and are told the application is not ready yet.
+     *
+     * @return True if the application is ready.
+     */
+    public static boolean warmUp() {
+        if (ready) {
+            return true;
+        }
+        if (STOPPING.equals(failure) || !lock.tryLock()) {
+            return false;
+        }
+
+        try {
+            if (ready || STOPPING.equals(failure)) {
+                return ready;
+            }
+
+            long start = System.nanoTime();
+            try {
+                JPAHelper.getEntityManagerFactory();
+                int connections = JPAHelper.warmUpConnectionPool();
+                if (QueryPlanVerifier.isEnabled()) {
+                    List<String> fullScans = QueryPlanVerifier.verify(StartupListener::warmUpQueries);
+                    if (!fullScans.isEmpty()) {
+                        throw new IllegalStateException("Full scan in the plan of " + fullScans);
+                    }
+                } else {
+                    warmUpQueries();
+                }
+                ObjectMapperResolver.warmUp();
+                failure = null;
+                ready = true;
+                LoggerUtil.getCurrentLogger().log(Level.INFO, "Application ready in {0,number,#} ms ({1} connections open)",
+                        new Object[] {TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), connections});
+            } catch (SQLException | RuntimeException e) {
+                failure = e.toString();
+                LoggerUtil.getCurrentLogger().log(Level.SEVERE, "Application warm-up failed", e);
+            }
+            return ready;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the read queries of the DAOs in a read-only unit of work. Their results do not matter,
+     * but the prefixes and IDs look like real ones, so that their plans are the ones real searches get,
+     * and the caches are bypassed, so that every query reaches the database.
+     */
+    private static void warmUpQueries() {
+        ITeacherDAO teacherDAO = new TeacherDAOImpl();
+        IUserDAO userDAO = new UserDAOImpl();
+        KeysetCursor after = new KeysetCursor("a", 1L);
+        boolean success = false;
+        JPAHelper.beginUnitOfWork(true);
+        try {
+            JPAHelper.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            teacherDAO.getByLastName("a", null, 1);
+            teacherDAO.getByLastName("a", after, 1);
+            teacherDAO.getVersionById(1L);
+            teacherDAO.getById(1L);
+            try (Stream<?> teachers = teacherDAO.streamByLastName("a", 1)) {
+                teachers.findFirst();
+            }
+            userDAO.getByUsername("a", null, 1);
+            userDAO.getByUsername("a", after, 1);
+            userDAO.getVersionById(1L);
+            userDAO.getById(1L);
+            userDAO.getFirstByUsername("a");
+            try (Stream<?> users = userDAO.streamByUsername("a", 1)) {
+                users.findFirst();
+            }
+            success = true;
+        } finally {
+            JPAHelper.endUnitOfWork(success);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.service.util.QueryMonitor;
+
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * This class serves as a RESTful web service for reading, resetting and configuring the query statistics.
+ * It is open to {@link Roles#ADMIN} users only: statistics include the parameters of slow statements.
+ */
+@Secured
+@RolesAllowed(Roles.ADMIN)
+@Path("/admin/statistics")
+public class StatisticsRestController {
+
+    /**
+     * Retrieves the statement counters, the Hibernate statistics and the most recent slow statements.
+     *
+     * @return A JSON response containing a QueryStatisticsDTO object.
+     */
+    @Path("/")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getStatistics() {
+        return Response.status(Response.Status.OK).entity(QueryMonitor.getStatistics()).build();
+    }
+
+    /**
+     * Changes how queries are observed. Parameters that are not given are left unchanged.
+     *
+     * @param statistics      True to collect Hibernate statistics, false to stop.
+     * @param monitor         True to monitor the statements of connections obtained from now on, false to stop.
+     * @param slowQueryMillis The execution time in milliseconds above which statements are logged as slow.
+     * @return A JSON response containing the updated QueryStatisticsDTO object, or 400 for a negative threshold.
+     */
+    @Path("/")
+    @PUT
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response configure(@QueryParam("statistics") Boolean statistics,
+                              @QueryParam("monitor") Boolean monitor,
+                              @QueryParam("slowQueryMillis") Long slowQueryMillis) {
+        if (slowQueryMillis != null && slowQueryMillis < 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Invalid slow query threshold").build();
+        }
+
+        if (statistics != null) {
+            QueryMonitor.setStatisticsEnabled(statistics);
+        }
+        if (monitor != null) {
+            QueryMonitor.setEnabled(monitor);
+        }
+        if (slowQueryMillis != null) {
+            QueryMonitor.setSlowThresholdMillis(slowQueryMillis);
+        }
+        return Response.status(Response.Status.OK).entity(QueryMonitor.getStatistics()).build();
+    }
+
+    /**
+     * Resets the statement counters and the Hibernate statistics and forgets the recent slow statements.
+     *
+     * @return An empty response.
+     */
+    @Path("/")
+    @DELETE
+    public Response reset() {
+        QueryMonitor.reset();
+        return Response.status(Response.Status.NO_CONTENT).build();
+    }
+}
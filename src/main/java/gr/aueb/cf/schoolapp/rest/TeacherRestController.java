@@ -1,66 +1,141 @@
 package gr.aueb.cf.schoolapp.rest;
 
-
+import com.fasterxml.jackson.core.JsonGenerator;
+import gr.aueb.cf.schoolapp.dto.BulkDeleteResultDTO;
+import gr.aueb.cf.schoolapp.dto.BulkResultDTO;
+import gr.aueb.cf.schoolapp.dto.PageDTO;
 import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.Teacher;
 import gr.aueb.cf.schoolapp.service.ITeacherService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import javax.annotation.security.RolesAllowed;
 import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This class serves as a RESTful web service for managing teacher information.
  */
+@Secured
 @Path("/teachers")
 public class TeacherRestController {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BULK_SIZE = 10000;
 
     @Inject
     private ITeacherService teacherService; // Injecting the teacher service for handling teacher-related operations.
 
     /**
-     * Retrieves a list of teachers by their last name.
+     * Retrieves one page of teachers whose last name starts with the given prefix.
      *
-     * @param lastname The last name to search for.
-     * @return A JSON response containing a list of TeacherDTO objects.
+     * @param lastname The last name prefix to search for.
+     * @param cursor   The cursor returned as "next" by the previous page, or null for the first page.
+     * @param limit    The maximum number of teachers in the page.
+     * @param request  The request, whose If-None-Match header is compared with the page content.
+     * @return A JSON response containing a page of TeacherDTO objects and the next page cursor.
      */
     @Path("/")
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getTeachersByLastname(@QueryParam("lastname") String lastname) {
-        List<Teacher> teachers;
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork(readOnly = true)
+    public Response getTeachersByLastname(@QueryParam("lastname") @DefaultValue("") String lastname,
+                                          @QueryParam("cursor") String cursor,
+                                          @QueryParam("limit") @DefaultValue("50") int limit,
+                                          @Context Request request) {
+        KeysetCursor after;
         try {
-            teachers = teacherService.getTeacherByLastname(lastname);
-            List<TeacherDTO> teachersDTO = new ArrayList<>();
-            for (Teacher teacher : teachers) {
-                teachersDTO.add(new TeacherDTO(teacher.getId(), teacher.getFirstname(), teacher.getLastname()));
+            after = KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Invalid cursor").build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<TeacherDTO> teachers;
+        try {
+            // One extra row tells whether there is a next page
+            teachers = teacherService.getTeacherByLastname(lastname, after, pageSize + 1);
+            List<TeacherDTO> teachersDTO = new ArrayList<>(teachers.subList(0, Math.min(teachers.size(), pageSize)));
+            String next = null;
+            if (teachers.size() > pageSize) {
+                TeacherDTO last = teachers.get(pageSize - 1);
+                next = new KeysetCursor(last.getLastname(), last.getId()).encode();
             }
-            return Response.status(Response.Status.OK).entity(teachersDTO).build();
+            return ConditionalResponses.okWithContentTag(request, new PageDTO<>(teachersDTO, next));
         } catch (EntityNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).entity("NOT FOUND").build();
         }
     }
 
+    /**
+     * Streams all teachers whose last name starts with the given prefix as a JSON or CBOR array.
+     * Each teacher is written to the response as soon as it is read from the database,
+     * so memory use does not depend on the number of teachers.
+     *
+     * @param lastname The last name prefix to search for.
+     * @param request  The request, whose Accept header chooses between JSON and CBOR.
+     * @return A streamed JSON or CBOR response containing an array of TeacherDTO objects.
+     */
+    @Path("/export")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response exportTeachers(@QueryParam("lastname") @DefaultValue("") String lastname,
+                                   @Context Request request) {
+        MediaType type = ObjectMapperResolver.negotiate(request);
+        StreamingOutput body = output -> {
+            try (JsonGenerator generator = ObjectMapperResolver.getMapper(type).createGenerator(output)) {
+                generator.writeStartArray();
+                teacherService.exportTeachers(lastname, teacher -> {
+                    try {
+                        generator.writeObject(teacher);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return Response.status(Response.Status.OK).entity(body).type(type)
+                .variants(ObjectMapperResolver.VARIANTS).build();
+    }
+
     /**
      * Retrieves information about a specific teacher by their ID.
      *
      * @param teacherId The ID of the teacher to retrieve.
+     * @param request   The request, whose If-None-Match and If-Modified-Since headers are evaluated.
      * @return A JSON response containing a TeacherDTO object.
      */
     @Path("/{teacherId}")
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getTeacher(@PathParam("teacherId") Long teacherId) {
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork(readOnly = true)
+    public Response getTeacher(@PathParam("teacherId") Long teacherId, @Context Request request) {
         Teacher teacher;
         try {
+            // Polls that find the client's copy current are answered from the version alone
+            Response notModified = ConditionalResponses.notModified(request, teacherService.getTeacherVersion(teacherId));
+            if (notModified != null) {
+                return notModified;
+            }
             teacher = teacherService.getTeacherById(teacherId);
             TeacherDTO teacherDto = new TeacherDTO(teacher.getId(), teacher.getFirstname(), teacher.getLastname());
-            return Response.status(Response.Status.OK).entity(teacherDto).build();
-        }catch (EntityNotFoundException e) {
+            return ConditionalResponses.ok(request, teacherDto, new VersionDTO(teacher.getId(), teacher.getVersion(), teacher.getLastModified()));
+        } catch (EntityNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).entity("NOT FOUND").build();
         }
     }
@@ -74,8 +149,9 @@ public class TeacherRestController {
      */
     @Path("/")
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork
     public Response addTeacher(TeacherDTO dto, @Context UriInfo uriInfo) {
         try {
             Teacher teacher = teacherService.insertTeacher(dto);
@@ -91,6 +167,27 @@ public class TeacherRestController {
         }
     }
 
+    /**
+     * Adds many new teachers to the system in one request.
+     *
+     * @param dtos The TeacherDTO objects containing the information of the teachers to be added.
+     * @return A JSON response containing the outcome of each teacher, in request order.
+     */
+    @Path("/bulk")
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response addTeachers(List<TeacherDTO> dtos) {
+        if (dtos == null || dtos.isEmpty() || dtos.size() > MAX_BULK_SIZE) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("A bulk request must contain 1 to " + MAX_BULK_SIZE + " teachers")
+                    .build();
+        }
+        List<BulkResultDTO> results = teacherService.insertTeachers(dtos);
+        return Response.status(Response.Status.OK).entity(results).build();
+    }
+
     /**
      * Deletes a teacher from the system by their ID.
      *
@@ -99,11 +196,11 @@ public class TeacherRestController {
      */
     @Path("/{teacherId}")
     @DELETE
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork
     public Response deleteTeacher(@PathParam("teacherId") Long teacherId) {
         try {
-            Teacher teacher = teacherService.getTeacherById(teacherId);
-            teacherService.deleteTeacher(teacherId);
+            Teacher teacher = teacherService.deleteTeacher(teacherId);
             TeacherDTO teacherDTO = map(teacher);
             return Response.status(Response.Status.OK).entity(teacherDTO).build();
         } catch (EntityNotFoundException e1) {
@@ -111,7 +208,36 @@ public class TeacherRestController {
                     .status(Response.Status.NOT_FOUND)
                     .entity("Teacher Not Found")
                     .build();
+        } catch (EntityConflictException e2) {
+            return Response
+                    .status(Response.Status.CONFLICT)
+                    .entity("Teacher Modified Concurrently")
+                    .build();
+        }
+    }
+
+    /**
+     * Deletes many teachers from the system in one request, with a single statement.
+     *
+     * @param ids The IDs of the teachers to be deleted, given as repeated "id" query parameters.
+     * @return A JSON response containing the number of teachers requested and deleted,
+     *         or 403 for a user who is not an admin.
+     */
+    @RolesAllowed(Roles.ADMIN)
+    @Path("/bulk")
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork
+    public Response deleteTeachers(@QueryParam("id") List<Long> ids) {
+        Set<Long> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_BULK_SIZE) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("A bulk request must contain 1 to " + MAX_BULK_SIZE + " teacher ids")
+                    .build();
         }
+        int deleted = teacherService.deleteTeachers(distinctIds);
+        return Response.status(Response.Status.OK).entity(new BulkDeleteResultDTO(distinctIds.size(), deleted)).build();
     }
 
     /**
@@ -119,23 +245,119 @@ public class TeacherRestController {
      *
      * @param teacherId The ID of the teacher to be updated.
      * @param dto       The TeacherDTO object containing updated teacher information.
-     * @return A JSON response containing the updated TeacherDTO object.
+     * @param ifMatch   The ETag of the version the changes are based on, or null to update any version.
+     * @param request   The request, whose Accept header chooses between JSON and CBOR.
+     * @return A JSON response containing the updated TeacherDTO object, or 400 if the body is missing.
      */
     @Path("/{teacherId}")
     @PUT
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response updateTeacher(@PathParam("teacherId") Long teacherId, TeacherDTO dto) {
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork
+    public Response updateTeacher(@PathParam("teacherId") Long teacherId, TeacherDTO dto,
+                                  @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                  @Context Request request) {
+        if (dto == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Missing teacher").build();
+        }
+
         try {
             dto.setId(teacherId);
-            Teacher teacher = teacherService.updateTeacher(dto);
+            Teacher teacher = teacherService.updateTeacher(dto, ConditionalResponses.expectedVersion(ifMatch, teacherId));
             TeacherDTO teacherDTO = map(teacher);
-            return Response.status(Response.Status.OK).entity(teacherDTO).build();
+            return ConditionalResponses.ok(request, teacherDTO, new VersionDTO(teacher.getId(), teacher.getVersion(), teacher.getLastModified()));
         } catch (EntityNotFoundException e1) {
             return Response.status(Response.Status.NOT_FOUND).entity("Teacher Not Found").build();
+        } catch (EntityConflictException e2) {
+            // A stale If-Match fails the precondition; without one, a concurrent update is a conflict
+            Response.Status status = (ifMatch != null) ? Response.Status.PRECONDITION_FAILED : Response.Status.CONFLICT;
+            return Response.status(status).entity("Teacher Modified Concurrently").build();
         }
     }
 
+    /**
+     * Asynchronous variant of {@link #getTeachersByLastname(String, String, int, Request)}, run on the database executor.
+     *
+     * @param lastname      The last name prefix to search for.
+     * @param cursor        The cursor returned as "next" by the previous page, or null for the first page.
+     * @param limit         The maximum number of teachers in the page.
+     * @param request       The request.
+     * @param asyncResponse The suspended response, resumed with the page of teachers.
+     */
+    @Path("/async")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void getTeachersByLastnameAsync(@QueryParam("lastname") @DefaultValue("") String lastname,
+                                           @QueryParam("cursor") String cursor,
+                                           @QueryParam("limit") @DefaultValue("50") int limit,
+                                           @Context Request request,
+                                           @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, true, () -> getTeachersByLastname(lastname, cursor, limit, request));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTeacher(Long, Request)}, run on the database executor.
+     *
+     * @param teacherId     The ID of the teacher to retrieve.
+     * @param request       The request.
+     * @param asyncResponse The suspended response, resumed with the TeacherDTO object.
+     */
+    @Path("/async/{teacherId}")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void getTeacherAsync(@PathParam("teacherId") Long teacherId, @Context Request request,
+                                @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, true, () -> getTeacher(teacherId, request));
+    }
+
+    /**
+     * Asynchronous variant of {@link #addTeacher(TeacherDTO, UriInfo)}, run on the database executor.
+     *
+     * @param dto           The TeacherDTO object containing teacher information to be added.
+     * @param uriInfo       Information about the request URI.
+     * @param asyncResponse The suspended response, resumed with the added TeacherDTO object.
+     */
+    @Path("/async")
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void addTeacherAsync(TeacherDTO dto, @Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, false, () -> addTeacher(dto, uriInfo));
+    }
+
+    /**
+     * Asynchronous variant of {@link #deleteTeacher(Long)}, run on the database executor.
+     *
+     * @param teacherId     The ID of the teacher to be deleted.
+     * @param asyncResponse The suspended response, resumed with the deleted TeacherDTO object.
+     */
+    @Path("/async/{teacherId}")
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void deleteTeacherAsync(@PathParam("teacherId") Long teacherId, @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, false, () -> deleteTeacher(teacherId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #updateTeacher(Long, TeacherDTO, String, Request)}, run on the database executor.
+     *
+     * @param teacherId     The ID of the teacher to be updated.
+     * @param dto           The TeacherDTO object containing updated teacher information.
+     * @param ifMatch       The ETag of the version the changes are based on, or null to update any version.
+     * @param request       The request.
+     * @param asyncResponse The suspended response, resumed with the updated TeacherDTO object.
+     */
+    @Path("/async/{teacherId}")
+    @PUT
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void updateTeacherAsync(@PathParam("teacherId") Long teacherId, TeacherDTO dto,
+                                   @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                   @Context Request request,
+                                   @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, false, () -> updateTeacher(teacherId, dto, ifMatch, request));
+    }
+
     /**
      * Maps a Teacher object to a TeacherDTO object.
      *
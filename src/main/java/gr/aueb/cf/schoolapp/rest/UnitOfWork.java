@@ -0,0 +1,26 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import javax.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a resource method (or every method of a resource class) whose service calls
+ * share one EntityManager and one transaction for the whole HTTP request.
+ *
+ * @see UnitOfWorkFilter
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface UnitOfWork {
+
+    /**
+     * Whether the request only reads, so its transaction can be read-only.
+     *
+     * @return True for a read-only unit of work.
+     */
+    boolean readOnly() default false;
+}
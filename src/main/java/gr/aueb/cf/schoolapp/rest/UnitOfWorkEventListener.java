@@ -0,0 +1,57 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.LoggerUtil;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.ws.rs.ext.Provider;
+import java.util.logging.Level;
+
+/**
+ * Rolls back the unit of work of a request that finished without reaching the response filter of
+ * the {@link UnitOfWorkFilter}, e.g. because the resource method threw an unmapped exception, so
+ * that the pooled request thread does not keep its EntityManager, transaction and connection.
+ */
+@Provider
+public class UnitOfWorkEventListener implements ApplicationEventListener {
+    private static final RequestEventListener ROLLBACK_UNFINISHED = UnitOfWorkEventListener::onRequestEvent;
+
+    /**
+     * Ignores application events.
+     *
+     * @param event The application event.
+     */
+    @Override
+    public void onEvent(ApplicationEvent event) {
+    }
+
+    /**
+     * Get the listener of the events of a request.
+     *
+     * @param requestEvent The event starting the request.
+     * @return The listener rolling back unfinished units of work.
+     */
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return ROLLBACK_UNFINISHED;
+    }
+
+    private static void onRequestEvent(RequestEvent event) {
+        if (event.getType() != RequestEvent.Type.FINISHED
+                || event.getContainerRequest().getProperty(UnitOfWorkFilter.ACTIVE) == null) {
+            return;
+        }
+
+        event.getContainerRequest().removeProperty(UnitOfWorkFilter.ACTIVE);
+        LoggerUtil.getCurrentLogger().log(Level.WARNING, "Rolling back the unit of work of a failed request: {0}",
+                event.getException());
+        try {
+            JPAHelper.endUnitOfWork(false);
+        } catch (RuntimeException e) {
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Unit of work rollback failed: {0}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.LoggerUtil;
+
+import jakarta.persistence.PersistenceException;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+
+/**
+ * Opens a unit of work before a {@link UnitOfWork} resource method runs and ends it
+ * once the response is ready: the transaction is committed if the response is
+ * successful and rolled back otherwise, and the EntityManager is closed and
+ * removed from the (pooled) request thread.
+ * <p>
+ * Response filters do not run when the resource method throws an exception that is not
+ * mapped to a response; the {@link UnitOfWorkEventListener} then rolls the unit of work back.
+ */
+@Provider
+@UnitOfWork
+@Priority(Priorities.USER)
+public class UnitOfWorkFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    // Request property set while the unit of work of the request has not been ended
+    static final String ACTIVE = UnitOfWorkFilter.class.getName() + ".active";
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    /**
+     * Begins the unit of work of the request.
+     *
+     * @param requestContext The request context.
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        JPAHelper.beginUnitOfWork(isReadOnly());
+        requestContext.setProperty(ACTIVE, Boolean.TRUE);
+    }
+
+    /**
+     * Commits or rolls back the unit of work of the request and releases its EntityManager.
+     * A failed commit turns the response into a server error.
+     *
+     * @param requestContext  The request context.
+     * @param responseContext The response context.
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        boolean success = responseContext.getStatus() < 400;
+        requestContext.removeProperty(ACTIVE);
+        try {
+            JPAHelper.endUnitOfWork(success);
+        } catch (PersistenceException e) {
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Unit of work commit failed: {0}", e.getMessage());
+            responseContext.setStatus(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+            responseContext.setEntity("Transaction failed");
+        }
+    }
+
+    private boolean isReadOnly() {
+        Method method = resourceInfo.getResourceMethod();
+        UnitOfWork unitOfWork = (method == null) ? null : method.getAnnotation(UnitOfWork.class);
+        if (unitOfWork == null) {
+            unitOfWork = resourceInfo.getResourceClass().getAnnotation(UnitOfWork.class);
+        }
+        return (unitOfWork != null) && unitOfWork.readOnly();
+    }
+}
@@ -1,153 +1,433 @@
 package gr.aueb.cf.schoolapp.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import gr.aueb.cf.schoolapp.dto.BulkDeleteResultDTO;
+import gr.aueb.cf.schoolapp.dto.BulkResultDTO;
+import gr.aueb.cf.schoolapp.dto.PageDTO;
 import gr.aueb.cf.schoolapp.dto.UserCredentialsDTO;
+import gr.aueb.cf.schoolapp.dto.UserDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.User;
 import gr.aueb.cf.schoolapp.service.IUserService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
+import gr.aueb.cf.schoolapp.service.util.PasswordHasher;
 
+import javax.annotation.security.RolesAllowed;
 import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This class serves as a RESTful web service for managing user information.
+ * Signing up (adding a single user) is open; everything else requires a token.
  */
 @Path("/users")
 public class UserRestController {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BULK_SIZE = 10000;
+    private static final int RETRY_AFTER_SECONDS = 1;
 
     @Inject
     IUserService userService; // Injecting the user service for handling user-related operations.
 
     /**
-     * Retrieves a list of users by their username.
+     * Retrieves one page of users whose username starts with the given prefix.
      *
-     * @param username The username to search for.
-     * @return A JSON response containing a list of UserCredentialsDTO objects.
+     * @param username The username prefix to search for.
+     * @param cursor   The cursor returned as "next" by the previous page, or null for the first page.
+     * @param limit    The maximum number of users in the page.
+     * @param request  The request, whose If-None-Match header is compared with the page content.
+     * @return A JSON response containing a page of UserDTO objects and the next page cursor.
      */
+    @Secured
     @Path("/")
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getUsersByUsername(@QueryParam("username") String username) {
-        List<User> users;
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork(readOnly = true)
+    public Response getUsersByUsername(@QueryParam("username") @DefaultValue("") String username,
+                                       @QueryParam("cursor") String cursor,
+                                       @QueryParam("limit") @DefaultValue("50") int limit,
+                                       @Context Request request) {
+        KeysetCursor after;
         try {
-            users = userService.getUserByUsername(username);
-            List<UserCredentialsDTO> userCredentialsDTO = new ArrayList<>();
-            for (User user : users) {
-                UserCredentialsDTO dto = new UserCredentialsDTO(user.getId(),
-                        user.getUsername(), user.getPassword());
+            after = KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Invalid cursor").build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<UserDTO> users;
+        try {
+            // One extra row tells whether there is a next page
+            users = userService.getUserByUsername(username, after, pageSize + 1);
+            List<UserDTO> usersDTO = new ArrayList<>(users.subList(0, Math.min(users.size(), pageSize)));
+            String next = null;
+            if (users.size() > pageSize) {
+                UserDTO last = users.get(pageSize - 1);
+                next = new KeysetCursor(last.getUsername(), last.getId()).encode();
             }
-            return Response.status(Response.Status.OK).entity(userCredentialsDTO).build();
+            return ConditionalResponses.okWithContentTag(request, new PageDTO<>(usersDTO, next));
         } catch (EntityNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).entity("NOT FOUND").build();
         }
     }
 
+    /**
+     * Streams all users whose username starts with the given prefix as a JSON or CBOR array.
+     * Each user is written to the response as soon as it is read from the database,
+     * so memory use does not depend on the number of users.
+     *
+     * @param username The username prefix to search for.
+     * @param request  The request, whose Accept header chooses between JSON and CBOR.
+     * @return A streamed JSON or CBOR response containing an array of UserDTO objects.
+     */
+    @Secured
+    @Path("/export")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response exportUsers(@QueryParam("username") @DefaultValue("") String username,
+                                @Context Request request) {
+        MediaType type = ObjectMapperResolver.negotiate(request);
+        StreamingOutput body = output -> {
+            try (JsonGenerator generator = ObjectMapperResolver.getMapper(type).createGenerator(output)) {
+                generator.writeStartArray();
+                userService.exportUsers(username, user -> {
+                    try {
+                        generator.writeObject(user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return Response.status(Response.Status.OK).entity(body).type(type)
+                .variants(ObjectMapperResolver.VARIANTS).build();
+    }
+
     /**
      * Retrieves information about a specific user by their ID.
      *
      * @param userId The ID of the user to retrieve.
-     * @return A JSON response containing a UserCredentialsDTO object.
+     * @param request The request, whose If-None-Match and If-Modified-Since headers are evaluated.
+     * @return A JSON response containing a UserDTO object.
      */
+    @Secured
     @Path("/{userId}")
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getUser(@PathParam("userId") Long userId) {
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork(readOnly = true)
+    public Response getUser(@PathParam("userId") Long userId, @Context Request request) {
         User user;
         try {
+            // Polls that find the client's copy current are answered from the version alone
+            Response notModified = ConditionalResponses.notModified(request, userService.getUserVersion(userId));
+            if (notModified != null) {
+                return notModified;
+            }
             user = userService.getUserById(userId);
-            UserCredentialsDTO dto = new UserCredentialsDTO(user.getId(),
-                    user.getUsername(), user.getPassword());
-            return Response.status(Response.Status.OK).entity(dto).build();
+            UserDTO dto = new UserDTO(user.getId(), user.getUsername());
+            return ConditionalResponses.ok(request, dto, new VersionDTO(user.getId(), user.getVersion(), user.getLastModified()));
         } catch (EntityNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).entity("NOT FOUND").build();
         }
     }
 
     /**
-     * Adds a new user to the system.
+     * Adds a new user to the system. The request is suspended while the password is hashed on the
+     * password hashing pool, and the user is then inserted on the database executor, so no container
+     * thread waits for either.
      *
-     * @param dto     The UserCredentialsDTO object containing user information to be added.
-     * @param uriInfo Information about the request URI.
-     * @return A JSON response containing the added UserCredentialsDTO object.
+     * @param dto           The UserCredentialsDTO object containing user information to be added.
+     * @param uriInfo       Information about the request URI.
+     * @param asyncResponse The suspended response, resumed with the added UserDTO object,
+     *                      or 503 if passwords cannot be hashed now.
      */
     @Path("/")
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response addUser(UserCredentialsDTO dto, @Context UriInfo uriInfo) {
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void addUser(UserCredentialsDTO dto, @Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+        // Rejected before the password is hashed, so a bad request costs no hashing time
+        if (dto == null || dto.getId() != null) {
+            asyncResponse.resume(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity((dto == null) ? "Missing user" : "User already exists")
+                    .build());
+            return;
+        }
         try {
-            User user = userService.insertUser(dto);
-            UserCredentialsDTO userDTO = map(user);
-            UriBuilder uriBuilder = uriInfo.getAbsolutePathBuilder();
-            return Response.created(uriBuilder.path(Long.toString(userDTO.getId())).build())
-                    .entity(userDTO).build();
-        } catch (EntityAlreadyExistsException e) {
+            PasswordHasher.hashAsync(dto.getPassword()).whenComplete((passwordHash, e) -> {
+                if (e != null) {
+                    asyncResponse.resume((e instanceof CompletionException) ? e.getCause() : e);
+                } else {
+                    AsyncDispatcher.dispatch(asyncResponse, false, () -> insertUser(dto, passwordHash, uriInfo));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(hashingBusy());
+        }
+    }
+
+    /**
+     * Adds many new users to the system in one request.
+     *
+     * @param dtos The UserCredentialsDTO objects containing the information of the users to be added.
+     * @return A JSON response containing the outcome of each user, in request order, or 503 if passwords cannot be hashed now.
+     */
+    @Secured
+    @Path("/bulk")
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response addUsers(List<UserCredentialsDTO> dtos) {
+        if (dtos == null || dtos.isEmpty() || dtos.size() > MAX_BULK_SIZE) {
             return Response
                     .status(Response.Status.BAD_REQUEST)
-                    .entity("User already exists")
+                    .entity("A bulk request must contain 1 to " + MAX_BULK_SIZE + " users")
                     .build();
         }
+        try {
+            List<BulkResultDTO> results = userService.insertUsers(dtos);
+            return Response.status(Response.Status.OK).entity(results).build();
+        } catch (RejectedExecutionException e) {
+            return hashingBusy();
+        }
     }
 
     /**
      * Deletes a user from the system by their ID.
      *
      * @param userId The ID of the user to be deleted.
-     * @return A JSON response containing the deleted UserCredentialsDTO object.
+     * @return A JSON response containing the deleted UserDTO object.
      */
+    @Secured
     @Path("/{userId}")
     @DELETE
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork
     public Response deleteUser(@PathParam("userId") Long userId) {
         try {
-            User user = userService.getUserById(userId);
-            userService.deleteUser(userId);
-            UserCredentialsDTO userCredentialsDTO = map(user);
-            return Response.status(Response.Status.OK).entity(userCredentialsDTO).build();
+            User user = userService.deleteUser(userId);
+            UserDTO userDTO = map(user);
+            return Response.status(Response.Status.OK).entity(userDTO).build();
         } catch (EntityNotFoundException e1) {
             return Response
                     .status(Response.Status.NOT_FOUND)
                     .entity("User Not Found")
                     .build();
+        } catch (EntityConflictException e2) {
+            return Response
+                    .status(Response.Status.CONFLICT)
+                    .entity("User Modified Concurrently")
+                    .build();
+        }
+    }
+
+    /**
+     * Deletes many users from the system in one request, with a single statement.
+     *
+     * @param ids The IDs of the users to be deleted, given as repeated "id" query parameters.
+     * @return A JSON response containing the number of users requested and deleted,
+     *         or 403 for a user who is not an admin.
+     */
+    @Secured
+    @RolesAllowed(Roles.ADMIN)
+    @Path("/bulk")
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork
+    public Response deleteUsers(@QueryParam("id") List<Long> ids) {
+        Set<Long> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_BULK_SIZE) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("A bulk request must contain 1 to " + MAX_BULK_SIZE + " user ids")
+                    .build();
         }
+        int deleted = userService.deleteUsers(distinctIds);
+        return Response.status(Response.Status.OK).entity(new BulkDeleteResultDTO(distinctIds.size(), deleted)).build();
     }
 
     /**
      * Updates the information of an existing user.
      *
-     * @param userId The ID of the user to be updated.
-     * @param dto    The UserCredentialsDTO object containing updated user information.
-     * @return A JSON response containing the updated UserCredentialsDTO object.
+     * @param userId  The ID of the user to be updated.
+     * @param dto     The UserCredentialsDTO object containing updated user information.
+     * @param ifMatch The ETag of the version the changes are based on, or null to update any version.
+     * @param request The request, whose Accept header chooses between JSON and CBOR.
+     * @return A JSON response containing the updated UserDTO object, 400 if the body is missing,
+     *         or 503 if passwords cannot be hashed now.
      */
+    @Secured
     @Path("/{userId}")
     @PUT
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response updateUser(@PathParam("userId") Long userId, UserCredentialsDTO dto) {
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @UnitOfWork
+    public Response updateUser(@PathParam("userId") Long userId, UserCredentialsDTO dto,
+                               @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                               @Context Request request) {
+        if (dto == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Missing user").build();
+        }
+
         try {
             dto.setId(userId);
-            User user = userService.updateUser(dto);
-            UserCredentialsDTO userCredentialsDTO = map(user);
-            return Response.status(Response.Status.OK).entity(userCredentialsDTO).build();
+            User user = userService.updateUser(dto, ConditionalResponses.expectedVersion(ifMatch, userId));
+            UserDTO userDTO = map(user);
+            return ConditionalResponses.ok(request, userDTO, new VersionDTO(user.getId(), user.getVersion(), user.getLastModified()));
         } catch (EntityNotFoundException e1) {
             return Response.status(Response.Status.NOT_FOUND).entity("User Not Found").build();
+        } catch (EntityConflictException e2) {
+            // A stale If-Match fails the precondition; without one, a concurrent update is a conflict
+            Response.Status status = (ifMatch != null) ? Response.Status.PRECONDITION_FAILED : Response.Status.CONFLICT;
+            return Response.status(status).entity("User Modified Concurrently").build();
+        } catch (RejectedExecutionException e3) {
+            return hashingBusy();
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #getUsersByUsername(String, String, int, Request)}, run on the database executor.
+     *
+     * @param username      The username prefix to search for.
+     * @param cursor        The cursor returned as "next" by the previous page, or null for the first page.
+     * @param limit         The maximum number of users in the page.
+     * @param request       The request.
+     * @param asyncResponse The suspended response, resumed with the page of users.
+     */
+    @Secured
+    @Path("/async")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void getUsersByUsernameAsync(@QueryParam("username") @DefaultValue("") String username,
+                                        @QueryParam("cursor") String cursor,
+                                        @QueryParam("limit") @DefaultValue("50") int limit,
+                                        @Context Request request,
+                                        @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, true, () -> getUsersByUsername(username, cursor, limit, request));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getUser(Long, Request)}, run on the database executor.
+     *
+     * @param userId        The ID of the user to retrieve.
+     * @param request       The request.
+     * @param asyncResponse The suspended response, resumed with the UserDTO object.
+     */
+    @Secured
+    @Path("/async/{userId}")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void getUserAsync(@PathParam("userId") Long userId, @Context Request request,
+                             @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, true, () -> getUser(userId, request));
+    }
+
+    /**
+     * Same as {@link #addUser(UserCredentialsDTO, UriInfo, AsyncResponse)}, which is already asynchronous;
+     * kept for clients of the asynchronous endpoints.
+     *
+     * @param dto           The UserCredentialsDTO object containing user information to be added.
+     * @param uriInfo       Information about the request URI.
+     * @param asyncResponse The suspended response, resumed with the added UserDTO object.
+     */
+    @Path("/async")
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void addUserAsync(UserCredentialsDTO dto, @Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+        addUser(dto, uriInfo, asyncResponse);
+    }
+
+    /**
+     * Asynchronous variant of {@link #deleteUser(Long)}, run on the database executor.
+     *
+     * @param userId        The ID of the user to be deleted.
+     * @param asyncResponse The suspended response, resumed with the deleted UserDTO object.
+     */
+    @Secured
+    @Path("/async/{userId}")
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void deleteUserAsync(@PathParam("userId") Long userId, @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, false, () -> deleteUser(userId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #updateUser(Long, UserCredentialsDTO, String, Request)}, run on the database executor.
+     *
+     * @param userId        The ID of the user to be updated.
+     * @param dto           The UserCredentialsDTO object containing updated user information.
+     * @param ifMatch       The ETag of the version the changes are based on, or null to update any version.
+     * @param request       The request.
+     * @param asyncResponse The suspended response, resumed with the updated UserDTO object.
+     */
+    @Secured
+    @Path("/async/{userId}")
+    @PUT
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void updateUserAsync(@PathParam("userId") Long userId, UserCredentialsDTO dto,
+                                @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                @Context Request request,
+                                @Suspended AsyncResponse asyncResponse) {
+        AsyncDispatcher.dispatch(asyncResponse, false, () -> updateUser(userId, dto, ifMatch, request));
+    }
+
+    /**
+     * Builds the response to a request whose password could not be hashed because the hashing pool is saturated.
+     *
+     * @return A 503 response asking the client to retry shortly.
+     */
+    private Response insertUser(UserCredentialsDTO dto, String passwordHash, UriInfo uriInfo) {
+        try {
+            User user = userService.insertUser(dto, passwordHash);
+            UserDTO userDTO = map(user);
+            UriBuilder uriBuilder = uriInfo.getAbsolutePathBuilder();
+            return Response.created(uriBuilder.path(Long.toString(userDTO.getId())).build())
+                    .entity(userDTO).build();
+        } catch (EntityAlreadyExistsException e) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("User already exists")
+                    .build();
         }
     }
 
+    private Response hashingBusy() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .entity("Server busy")
+                .build();
+    }
+
     /**
-     * Maps a User object to a UserCredentialsDTO object.
+     * Maps a User object to a UserDTO object, leaving out the password.
      *
      * @param user The User object to be mapped.
-     * @return A mapped UserCredentialsDTO object.
+     * @return A mapped UserDTO object.
      */
-    private UserCredentialsDTO map(User user) {
-        UserCredentialsDTO userCredentialsDTO = new UserCredentialsDTO();
-        userCredentialsDTO.setId(user.getId());
-        userCredentialsDTO.setUsername(user.getUsername());
-        userCredentialsDTO.setPassword(user.getPassword());
-        return userCredentialsDTO;
+    private UserDTO map(User user) {
+        UserDTO userDTO = new UserDTO();
+        userDTO.setId(user.getId());
+        userDTO.setUsername(user.getUsername());
+        return userDTO;
     }
 }
@@ -1,11 +1,17 @@
 package gr.aueb.cf.schoolapp.service;
 
+import gr.aueb.cf.schoolapp.dto.BulkResultDTO;
 import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.Teacher;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 /**
  * Service interface for managing teacher-related operations in a school application.
  */
@@ -19,31 +25,63 @@ public interface ITeacherService {
      */
     Teacher insertTeacher(TeacherDTO teacherDTO) throws EntityAlreadyExistsException;
 
+    /**
+     * Inserts many new teachers into the system, using one transaction per chunk of teachers.
+     * Teachers that already have an ID are rejected; if a chunk fails, all teachers of that chunk are reported as failed.
+     *
+     * @param teacherDTOs The TeacherDTO objects containing information about the teachers to be inserted.
+     * @return The outcome of each teacher, in request order.
+     */
+    List<BulkResultDTO> insertTeachers(List<TeacherDTO> teacherDTOs);
+
     /**
      * Updates an existing teacher's information in the system.
      *
-     * @param teacherDTO The TeacherDTO object containing updated information about the teacher.
+     * @param teacherDTO      The TeacherDTO object containing updated information about the teacher.
+     * @param expectedVersion The version the changes are based on, or null to update any version.
      * @return The updated Teacher object.
      * @throws EntityNotFoundException If the specified teacher is not found in the system.
+     * @throws EntityConflictException If the teacher does not have the expected version, or is updated concurrently.
      */
-    Teacher updateTeacher(TeacherDTO teacherDTO) throws EntityNotFoundException;
+    Teacher updateTeacher(TeacherDTO teacherDTO, Long expectedVersion) throws EntityNotFoundException, EntityConflictException;
 
     /**
      * Deletes a teacher from the system by their ID.
      *
      * @param id The ID of the teacher to be deleted.
+     * @return The deleted Teacher object.
      * @throws EntityNotFoundException If the specified teacher is not found in the system.
+     * @throws EntityConflictException If the teacher is updated concurrently.
      */
-    void deleteTeacher(Long id) throws EntityNotFoundException;
+    Teacher deleteTeacher(Long id) throws EntityNotFoundException, EntityConflictException;
 
     /**
-     * Retrieves a list of teachers by their last name.
+     * Deletes the teachers with the given IDs from the system.
      *
-     * @param lastname The last name of teachers to search for.
-     * @return A list of Teacher objects matching the specified last name.
-     * @throws EntityNotFoundException If no teachers with the specified last name are found.
+     * @param ids The IDs of the teachers to be deleted.
+     * @return The number of teachers deleted; IDs that do not exist are not counted.
      */
-    List<Teacher> getTeacherByLastname(String lastname) throws EntityNotFoundException;
+    int deleteTeachers(Collection<Long> ids);
+
+    /**
+     * Retrieves one page of teachers whose last name starts with the given prefix.
+     *
+     * @param lastname The last name prefix of teachers to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of teachers to return.
+     * @return A list of TeacherDTO objects matching the specified last name.
+     * @throws EntityNotFoundException If the first page contains no teachers.
+     */
+    List<TeacherDTO> getTeacherByLastname(String lastname, KeysetCursor after, int limit) throws EntityNotFoundException;
+
+    /**
+     * Passes every teacher whose last name starts with the given prefix to the given action,
+     * one at a time, while they are read from the database.
+     *
+     * @param lastname The last name prefix of teachers to export.
+     * @param action   The action to perform on each teacher.
+     */
+    void exportTeachers(String lastname, Consumer<TeacherDTO> action);
 
     /**
      * Retrieves information about a specific teacher by their ID.
@@ -53,4 +91,13 @@ public interface ITeacherService {
      * @throws EntityNotFoundException If the specified teacher is not found in the system.
      */
     Teacher getTeacherById(Long id) throws EntityNotFoundException;
+
+    /**
+     * Retrieves the version of a specific teacher by their ID, without loading the teacher.
+     *
+     * @param id The ID of the teacher.
+     * @return The version and last modification time of the teacher.
+     * @throws EntityNotFoundException If the specified teacher is not found in the system.
+     */
+    VersionDTO getTeacherVersion(Long id) throws EntityNotFoundException;
 }
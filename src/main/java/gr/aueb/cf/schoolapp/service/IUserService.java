@@ -1,12 +1,21 @@
 package gr.aueb.cf.schoolapp.service;
 
 
+import gr.aueb.cf.schoolapp.dto.BulkResultDTO;
 import gr.aueb.cf.schoolapp.dto.UserCredentialsDTO;
+import gr.aueb.cf.schoolapp.dto.UserDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.User;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.InvalidCredentialsException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing user-related operations in a school application.
@@ -21,31 +30,73 @@ public interface IUserService {
      */
     User insertUser(UserCredentialsDTO userCredentialsDTO) throws EntityAlreadyExistsException;
 
+    /**
+     * Inserts a new user into the system, with a password already hashed.
+     *
+     * @param userCredentialsDTO The UserCredentialsDTO object containing information about the user to be inserted.
+     * @param passwordHash       The hash of the password.
+     * @return The inserted User object.
+     * @throws EntityAlreadyExistsException If a user with the same ID already exists in the system.
+     */
+    User insertUser(UserCredentialsDTO userCredentialsDTO, String passwordHash) throws EntityAlreadyExistsException;
+
+    /**
+     * Inserts many new users into the system, using one transaction per chunk of users.
+     * Users that already have an ID are rejected; if a chunk fails, all users of that chunk are reported as failed.
+     *
+     * @param userCredentialsDTOs The UserCredentialsDTO objects containing information about the users to be inserted.
+     * @return The outcome of each user, in request order.
+     */
+    List<BulkResultDTO> insertUsers(List<UserCredentialsDTO> userCredentialsDTOs);
+
     /**
      * Updates an existing user's information in the system.
      *
      * @param userCredentialsDTO The UserCredentialsDTO object containing updated information about the user.
+     * @param expectedVersion    The version the changes are based on, or null to update any version.
      * @return The updated User object.
      * @throws EntityNotFoundException If the specified user is not found in the system.
+     * @throws EntityConflictException If the user does not have the expected version, or is updated concurrently.
      */
-    User updateUser(UserCredentialsDTO userCredentialsDTO) throws EntityNotFoundException;
+    User updateUser(UserCredentialsDTO userCredentialsDTO, Long expectedVersion) throws EntityNotFoundException, EntityConflictException;
 
     /**
      * Deletes a user from the system by their ID.
      *
      * @param id The ID of the user to be deleted.
+     * @return The deleted User object.
      * @throws EntityNotFoundException If the specified user is not found in the system.
+     * @throws EntityConflictException If the user is updated concurrently.
+     */
+    User deleteUser(Long id) throws EntityNotFoundException, EntityConflictException;
+
+    /**
+     * Deletes the users with the given IDs from the system.
+     *
+     * @param ids The IDs of the users to be deleted.
+     * @return The number of users deleted; IDs that do not exist are not counted.
      */
-    void deleteUser(Long id) throws EntityNotFoundException;
+    int deleteUsers(Collection<Long> ids);
 
     /**
-     * Retrieves a list of users by their username.
+     * Retrieves one page of users whose username starts with the given prefix.
      *
-     * @param username The username of users to search for.
-     * @return A list of User objects matching the specified username.
-     * @throws EntityNotFoundException If no users with the specified username are found.
+     * @param username The username prefix of users to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of users to return.
+     * @return A list of UserDTO objects matching the specified username.
+     * @throws EntityNotFoundException If the first page contains no users.
      */
-    List<User> getUserByUsername(String username) throws EntityNotFoundException;
+    List<UserDTO> getUserByUsername(String username, KeysetCursor after, int limit) throws EntityNotFoundException;
+
+    /**
+     * Passes every user whose username starts with the given prefix to the given action,
+     * one at a time, while they are read from the database.
+     *
+     * @param username The username prefix of users to export.
+     * @param action   The action to perform on each user.
+     */
+    void exportUsers(String username, Consumer<UserDTO> action);
 
     /**
      * Retrieves information about a specific user by their ID.
@@ -55,4 +106,23 @@ public interface IUserService {
      * @throws EntityNotFoundException If the specified user is not found in the system.
      */
     User getUserById(Long id) throws EntityNotFoundException;
+
+    /**
+     * Retrieves the version of a specific user by their ID, without loading the user.
+     *
+     * @param id The ID of the user.
+     * @return The version and last modification time of the user.
+     * @throws EntityNotFoundException If the specified user is not found in the system.
+     */
+    VersionDTO getUserVersion(Long id) throws EntityNotFoundException;
+
+    /**
+     * Checks the credentials of a user.
+     *
+     * @param username The username of the user.
+     * @param password The password of the user.
+     * @return A future completed with the authenticated User object, including its role, or exceptionally with
+     *         an {@link InvalidCredentialsException} if there is no such user or the password is wrong.
+     */
+    CompletableFuture<User> authenticate(String username, String password);
 }
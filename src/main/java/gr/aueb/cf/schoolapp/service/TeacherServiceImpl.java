@@ -1,25 +1,42 @@
 package gr.aueb.cf.schoolapp.service;
 
 import gr.aueb.cf.schoolapp.dao.ITeacherDAO;
+import gr.aueb.cf.schoolapp.dto.BulkResultDTO;
 import gr.aueb.cf.schoolapp.dto.TeacherDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.Teacher;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
 import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import gr.aueb.cf.schoolapp.service.util.LoggerUtil;
+import gr.aueb.cf.schoolapp.service.util.Timed;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.ext.Provider;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Stream;
 
 /**
  * Implementation class for managing teacher-related operations in a school application.
  */
 @Provider
 @RequestScoped
+@Timed("service")
 public class TeacherServiceImpl implements ITeacherService {
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final int BULK_CHUNK_SIZE = 1000;
+
     @Inject
     private ITeacherDAO teacherDAO;
 
@@ -53,28 +70,76 @@ public class TeacherServiceImpl implements ITeacherService {
         return teacher;
     }
 
+    /**
+     * Inserts many new teachers into the system, using one transaction per chunk of teachers.
+     * Teachers that already have an ID are rejected; if a chunk fails, all teachers of that chunk are reported as failed.
+     *
+     * @param teacherDTOs The TeacherDTO objects containing information about the teachers to be inserted.
+     * @return The outcome of each teacher, in request order.
+     */
+    @Override
+    public List<BulkResultDTO> insertTeachers(List<TeacherDTO> teacherDTOs) {
+        List<BulkResultDTO> results = new ArrayList<>(teacherDTOs.size());
+        for (int start = 0; start < teacherDTOs.size(); start += BULK_CHUNK_SIZE) {
+            int end = Math.min(start + BULK_CHUNK_SIZE, teacherDTOs.size());
+            List<Integer> indexes = new ArrayList<>();
+            List<Teacher> teachers = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                TeacherDTO dto = teacherDTOs.get(i);
+                if (dto == null) {
+                    results.add(new BulkResultDTO(i, null, BulkResultDTO.Status.REJECTED, "Missing teacher"));
+                } else if (dto.getId() != null) {
+                    results.add(new BulkResultDTO(i, dto.getId(), BulkResultDTO.Status.REJECTED, "Teacher already exists"));
+                } else {
+                    indexes.add(i);
+                    teachers.add(map(dto));
+                }
+            }
+            results.addAll(insertChunk(indexes, teachers));
+        }
+        results.sort(Comparator.comparingInt(BulkResultDTO::getIndex));
+        return results;
+    }
+
     /**
      * Updates an existing teacher's information in the system.
      *
-     * @param teacherDTO The TeacherDTO object containing updated information about the teacher.
+     * @param teacherDTO      The TeacherDTO object containing updated information about the teacher.
+     * @param expectedVersion The version the changes are based on, or null to update any version.
      * @return The updated Teacher object.
      * @throws EntityNotFoundException If the specified teacher is not found in the system.
+     * @throws EntityConflictException If the teacher does not have the expected version, or is updated concurrently.
      */
     @Override
-    public Teacher updateTeacher(TeacherDTO teacherDTO) throws EntityNotFoundException {
+    public Teacher updateTeacher(TeacherDTO teacherDTO, Long expectedVersion) throws EntityNotFoundException, EntityConflictException {
         Teacher teacherToUpdate;
         try {
             JPAHelper.beginTransaction();
-            teacherToUpdate = map(teacherDTO);
-            if (teacherDAO.getById(teacherToUpdate.getId()) == null) {
-                throw new EntityNotFoundException(Teacher.class, teacherToUpdate.getId());
+            // Usually served from the second-level cache. With @DynamicUpdate the flush is then a single
+            // UPDATE of the changed columns WHERE ID = ? AND VERSION = ?, which fails if the row has moved on
+            teacherToUpdate = teacherDAO.getById(teacherDTO.getId());
+            if (teacherToUpdate == null) {
+                throw new EntityNotFoundException(Teacher.class, teacherDTO.getId());
             }
-            teacherDAO.update(teacherToUpdate);
+            if ((expectedVersion != null) && (expectedVersion != teacherToUpdate.getVersion())) {
+                throw new EntityConflictException(Teacher.class, teacherDTO.getId());
+            }
+            teacherToUpdate.setFirstname(teacherDTO.getFirstname());
+            teacherToUpdate.setLastname(teacherDTO.getLastname());
+            JPAHelper.flush();
             JPAHelper.commitTransaction();
         } catch (EntityNotFoundException e) {
             JPAHelper.rollbackTransaction();
-            LoggerUtil.getCurrentLogger().warning("Update rollback - Entity not found");
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Update rollback - Teacher {0,number,#} not found", teacherDTO.getId());
+            throw e;
+        } catch (EntityConflictException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Update rollback - Teacher {0,number,#} version mismatch", teacherDTO.getId());
             throw e;
+        } catch (OptimisticLockException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Update rollback - Teacher {0,number,#} modified concurrently", teacherDTO.getId());
+            throw new EntityConflictException(Teacher.class, teacherDTO.getId());
         } finally {
             JPAHelper.closeEntityManager();
         }
@@ -83,42 +148,79 @@ public class TeacherServiceImpl implements ITeacherService {
 
     /**
      * Deletes a teacher from the system by their ID.
+     * The teacher is read once (usually from the second-level cache) and removed with a single
+     * DELETE ... WHERE ID = ? AND VERSION = ?, whose row count detects concurrent changes.
      *
      * @param id The ID of the teacher to be deleted.
+     * @return The deleted Teacher object.
      * @throws EntityNotFoundException If the specified teacher is not found in the system.
+     * @throws EntityConflictException If the teacher is updated or deleted concurrently.
      */
     @Override
-    public void deleteTeacher(Long id) throws EntityNotFoundException {
+    public Teacher deleteTeacher(Long id) throws EntityNotFoundException, EntityConflictException {
+        Teacher teacherToDelete;
         try {
             JPAHelper.beginTransaction();
-            if (teacherDAO.getById(id) == null) {
+            teacherToDelete = teacherDAO.getById(id);
+            if (teacherToDelete == null) {
                 throw new EntityNotFoundException(Teacher.class, id);
             }
             teacherDAO.delete(id);
+            JPAHelper.flush();
             JPAHelper.commitTransaction();
         } catch (EntityNotFoundException e) {
             JPAHelper.rollbackTransaction();
-            LoggerUtil.getCurrentLogger().warning("Delete rollback");
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Delete rollback - Teacher {0,number,#} not found", id);
             throw e;
+        } catch (OptimisticLockException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Delete rollback - Teacher {0,number,#} modified concurrently", id);
+            throw new EntityConflictException(Teacher.class, id);
         } finally {
             JPAHelper.closeEntityManager();
         }
+        return teacherToDelete;
     }
 
     /**
-     * Retrieves a list of teachers by their last name.
+     * Deletes the teachers with the given IDs from the system in a single statement.
      *
-     * @param lastname The last name of teachers to search for.
-     * @return A list of Teacher objects matching the specified last name.
-     * @throws EntityNotFoundException If no teachers with the specified last name are found.
+     * @param ids The IDs of the teachers to be deleted.
+     * @return The number of teachers deleted; IDs that do not exist are not counted.
      */
     @Override
-    public List<Teacher> getTeacherByLastname(String lastname) throws EntityNotFoundException {
-        List<Teacher> teachers;
+    public int deleteTeachers(Collection<Long> ids) {
+        int deleted;
         try {
             JPAHelper.beginTransaction();
-            teachers = teacherDAO.getByLastName(lastname);
-            if (teachers.size() == 0) {
+            deleted = teacherDAO.deleteAllById(ids);
+            JPAHelper.commitTransaction();
+        } catch (PersistenceException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Bulk delete rollback - {0}", e.getMessage());
+            throw e;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+        return deleted;
+    }
+
+    /**
+     * Retrieves one page of teachers whose last name starts with the given prefix.
+     *
+     * @param lastname The last name prefix of teachers to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of teachers to return.
+     * @return A list of TeacherDTO objects matching the specified last name.
+     * @throws EntityNotFoundException If the first page contains no teachers.
+     */
+    @Override
+    public List<TeacherDTO> getTeacherByLastname(String lastname, KeysetCursor after, int limit) throws EntityNotFoundException {
+        List<TeacherDTO> teachers;
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            teachers = teacherDAO.getByLastName(lastname, after, limit);
+            if (teachers.size() == 0 && after == null) {
                 throw new EntityNotFoundException(List.class, 0L);
             }
             JPAHelper.commitTransaction();
@@ -133,6 +235,31 @@ public class TeacherServiceImpl implements ITeacherService {
         return teachers;
     }
 
+    /**
+     * Passes every teacher whose last name starts with the given prefix to the given action,
+     * one at a time, while they are read from the database.
+     *
+     * @param lastname The last name prefix of teachers to export.
+     * @param action   The action to perform on each teacher.
+     */
+    @Override
+    public void exportTeachers(String lastname, Consumer<TeacherDTO> action) {
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            try (Stream<TeacherDTO> teachers = teacherDAO.streamByLastName(lastname, EXPORT_FETCH_SIZE)) {
+                // Projections are not managed, so the persistence context stays empty
+                teachers.forEach(action);
+            }
+            JPAHelper.commitTransaction();
+        } catch (RuntimeException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Export teachers rollback - {0}", e.getMessage());
+            throw e;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
     /**
      * Retrieves information about a specific teacher by their ID.
      *
@@ -144,7 +271,7 @@ public class TeacherServiceImpl implements ITeacherService {
     public Teacher getTeacherById(Long id) throws EntityNotFoundException {
         Teacher teacher;
         try {
-            JPAHelper.beginTransaction();
+            JPAHelper.beginReadOnlyTransaction();
             teacher = teacherDAO.getById(id);
             if (teacher == null) {
                 throw new EntityNotFoundException(Teacher.class, id);
@@ -152,8 +279,7 @@ public class TeacherServiceImpl implements ITeacherService {
             JPAHelper.commitTransaction();
         } catch (EntityNotFoundException e) {
             JPAHelper.rollbackTransaction();
-            LoggerUtil.getCurrentLogger().warning("Get teacher by id rollback " +
-                    "- Teacher not found");
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Get teacher by id rollback - Teacher {0,number,#} not found", id);
             throw e;
         } finally {
             JPAHelper.closeEntityManager();
@@ -161,6 +287,58 @@ public class TeacherServiceImpl implements ITeacherService {
         return teacher;
     }
 
+    /**
+     * Retrieves the version of a specific teacher by their ID, without loading the teacher.
+     *
+     * @param id The ID of the teacher.
+     * @return The version and last modification time of the teacher.
+     * @throws EntityNotFoundException If the specified teacher is not found in the system.
+     */
+    @Override
+    public VersionDTO getTeacherVersion(Long id) throws EntityNotFoundException {
+        VersionDTO version;
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            version = teacherDAO.getVersionById(id);
+            if (version == null) {
+                throw new EntityNotFoundException(Teacher.class, id);
+            }
+            JPAHelper.commitTransaction();
+        } catch (EntityNotFoundException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Get teacher version rollback - Teacher {0,number,#} not found", id);
+            throw e;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+        return version;
+    }
+
+    private List<BulkResultDTO> insertChunk(List<Integer> indexes, List<Teacher> teachers) {
+        List<BulkResultDTO> results = new ArrayList<>(teachers.size());
+        if (teachers.isEmpty()) {
+            return results;
+        }
+        try {
+            JPAHelper.beginTransaction();
+            teacherDAO.insertAll(teachers);
+            JPAHelper.commitTransaction();
+            for (int i = 0; i < teachers.size(); i++) {
+                results.add(new BulkResultDTO(indexes.get(i), teachers.get(i).getId(), BulkResultDTO.Status.CREATED, null));
+            }
+        } catch (PersistenceException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().warning("Bulk insert teachers - " +
+                    "rollback - chunk failed");
+            for (Integer index : indexes) {
+                results.add(new BulkResultDTO(index, null, BulkResultDTO.Status.FAILED, e.getMessage()));
+            }
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+        return results;
+    }
+
     private Teacher map(TeacherDTO dto) {
         Teacher teacher = new Teacher();
         teacher.setId(dto.getId());
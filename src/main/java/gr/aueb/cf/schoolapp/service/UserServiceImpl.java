@@ -2,52 +2,84 @@ package gr.aueb.cf.schoolapp.service;
 
 import gr.aueb.cf.schoolapp.dao.IUserDAO;
 
+import gr.aueb.cf.schoolapp.dto.BulkResultDTO;
 import gr.aueb.cf.schoolapp.dto.UserCredentialsDTO;
+import gr.aueb.cf.schoolapp.dto.UserDTO;
+import gr.aueb.cf.schoolapp.dto.VersionDTO;
 import gr.aueb.cf.schoolapp.model.User;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.InvalidCredentialsException;
+import gr.aueb.cf.schoolapp.service.util.DbExecutor;
 import gr.aueb.cf.schoolapp.service.util.JPAHelper;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import gr.aueb.cf.schoolapp.service.util.LoggerUtil;
+import gr.aueb.cf.schoolapp.service.util.PasswordHasher;
+import gr.aueb.cf.schoolapp.service.util.Timed;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.ws.rs.ext.Provider;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation class for managing user-related operations in a school application.
  */
 @Provider
 @RequestScoped
-public class UserServiceImpl implements IUserService{
+@Timed("service")
+public class UserServiceImpl implements IUserService {
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final int BULK_CHUNK_SIZE = 1000;
 
     @Inject
     private IUserDAO userDAO;
 
     /**
-     * Inserts a new user into the system.
+     * Inserts a new user into the system. The password is hashed on the password hashing pool
+     * before the transaction begins, so no connection is held meanwhile.
      *
      * @param userCredentialsDTO The UserCredentialsDTO object containing information about the user to be inserted.
      * @return The inserted User object.
      * @throws EntityAlreadyExistsException If a user with the same ID already exists in the system.
+     * @throws java.util.concurrent.RejectedExecutionException If the password hashing pool is saturated.
      */
     @Override
     public User insertUser(UserCredentialsDTO userCredentialsDTO) throws EntityAlreadyExistsException {
-        User user = null;
+        // Rejected before the password is hashed, so a bad request costs no hashing time
+        checkNew(userCredentialsDTO);
+        return insertUser(userCredentialsDTO, PasswordHasher.hash(userCredentialsDTO.getPassword()));
+    }
+
+    /**
+     * Inserts a new user into the system, with a password already hashed.
+     *
+     * @param userCredentialsDTO The UserCredentialsDTO object containing information about the user to be inserted.
+     * @param passwordHash       The hash of the password, as returned by {@link PasswordHasher#hashAsync(String)}.
+     * @return The inserted User object.
+     * @throws EntityAlreadyExistsException If a user with the same ID already exists in the system.
+     */
+    @Override
+    public User insertUser(UserCredentialsDTO userCredentialsDTO, String passwordHash) throws EntityAlreadyExistsException {
+        User user;
+        checkNew(userCredentialsDTO);
         try {
             JPAHelper.beginTransaction();
-            user = map(userCredentialsDTO);
-            if (userCredentialsDTO.getId() == null) {
-                user = userDAO.insert(user);
-            } else {
-                throw new EntityAlreadyExistsException(User.class, user.getId());
-            }
+            user = userDAO.insert(map(userCredentialsDTO, passwordHash));
             JPAHelper.commitTransaction();
-        } catch (EntityAlreadyExistsException e) {
-            JPAHelper.rollbackTransaction();
-            LoggerUtil.getCurrentLogger().warning("Insert user - " +
-                    "rollback - entity already exists");
-            throw e;
         } finally {
             JPAHelper.closeEntityManager();
         }
@@ -56,28 +88,87 @@ public class UserServiceImpl implements IUserService{
 
     }
 
+    /**
+     * Inserts many new users into the system, using one transaction per chunk of users.
+     * Users that already have an ID are rejected; if a chunk fails, all users of that chunk are reported as failed.
+     * The passwords of a chunk are hashed in parallel on the password hashing pool before its transaction begins.
+     *
+     * @param userCredentialsDTOs The UserCredentialsDTO objects containing information about the users to be inserted.
+     * @return The outcome of each user, in request order.
+     * @throws java.util.concurrent.RejectedExecutionException If the password hashing pool is saturated.
+     */
+    @Override
+    public List<BulkResultDTO> insertUsers(List<UserCredentialsDTO> userCredentialsDTOs) {
+        List<BulkResultDTO> results = new ArrayList<>(userCredentialsDTOs.size());
+        for (int start = 0; start < userCredentialsDTOs.size(); start += BULK_CHUNK_SIZE) {
+            int end = Math.min(start + BULK_CHUNK_SIZE, userCredentialsDTOs.size());
+            List<Integer> indexes = new ArrayList<>();
+            List<UserCredentialsDTO> accepted = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                UserCredentialsDTO dto = userCredentialsDTOs.get(i);
+                if (dto == null) {
+                    results.add(new BulkResultDTO(i, null, BulkResultDTO.Status.REJECTED, "Missing user"));
+                } else if (dto.getId() != null) {
+                    results.add(new BulkResultDTO(i, dto.getId(), BulkResultDTO.Status.REJECTED, "User already exists"));
+                } else {
+                    indexes.add(i);
+                    accepted.add(dto);
+                }
+            }
+            List<String> passwordHashes = PasswordHasher.hashAll(
+                    accepted.stream().map(UserCredentialsDTO::getPassword).collect(Collectors.toList()));
+            List<User> users = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                users.add(map(accepted.get(i), passwordHashes.get(i)));
+            }
+            results.addAll(insertChunk(indexes, users));
+        }
+        results.sort(Comparator.comparingInt(BulkResultDTO::getIndex));
+        return results;
+    }
+
     /**
      * Updates an existing user's information in the system.
      *
      * @param userCredentialsDTO The UserCredentialsDTO object containing updated information about the user.
+     * @param expectedVersion    The version the changes are based on, or null to update any version.
      * @return The updated User object.
      * @throws EntityNotFoundException If the specified user is not found in the system.
+     * @throws EntityConflictException If the user does not have the expected version, or is updated concurrently.
+     * @throws java.util.concurrent.RejectedExecutionException If the password hashing pool is saturated.
      */
     @Override
-    public User updateUser(UserCredentialsDTO userCredentialsDTO) throws EntityNotFoundException {
+    public User updateUser(UserCredentialsDTO userCredentialsDTO, Long expectedVersion) throws EntityNotFoundException, EntityConflictException {
         User userToUpdate;
+        // Hashed before the transaction begins, so no connection is held meanwhile
+        String passwordHash = PasswordHasher.hash(userCredentialsDTO.getPassword());
         try {
             JPAHelper.beginTransaction();
-            userToUpdate = map(userCredentialsDTO);
-            if (userDAO.getById(userToUpdate.getId()) == null) {
-                throw new EntityNotFoundException(User.class, userToUpdate.getId());
+            // Usually served from the second-level cache. With @DynamicUpdate the flush is then a single
+            // UPDATE of the changed columns WHERE ID = ? AND VERSION = ?, which fails if the row has moved on
+            userToUpdate = userDAO.getById(userCredentialsDTO.getId());
+            if (userToUpdate == null) {
+                throw new EntityNotFoundException(User.class, userCredentialsDTO.getId());
+            }
+            if ((expectedVersion != null) && (expectedVersion != userToUpdate.getVersion())) {
+                throw new EntityConflictException(User.class, userCredentialsDTO.getId());
             }
-            userDAO.update(userToUpdate);
+            userToUpdate.setUsername(userCredentialsDTO.getUsername());
+            userToUpdate.setPassword(passwordHash);
+            JPAHelper.flush();
             JPAHelper.commitTransaction();
         } catch (EntityNotFoundException e) {
             JPAHelper.rollbackTransaction();
-            LoggerUtil.getCurrentLogger().warning("Update rollback - Entity not found");
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Update rollback - User {0,number,#} not found", userCredentialsDTO.getId());
             throw e;
+        } catch (EntityConflictException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Update rollback - User {0,number,#} version mismatch", userCredentialsDTO.getId());
+            throw e;
+        } catch (OptimisticLockException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Update rollback - User {0,number,#} modified concurrently", userCredentialsDTO.getId());
+            throw new EntityConflictException(User.class, userCredentialsDTO.getId());
         } finally {
             JPAHelper.closeEntityManager();
         }
@@ -87,42 +178,79 @@ public class UserServiceImpl implements IUserService{
 
     /**
      * Deletes a user from the system by their ID.
+     * The user is read once (usually from the second-level cache) and removed with a single
+     * DELETE ... WHERE ID = ? AND VERSION = ?, whose row count detects concurrent changes.
      *
      * @param id The ID of the user to be deleted.
+     * @return The deleted User object.
      * @throws EntityNotFoundException If the specified user is not found in the system.
+     * @throws EntityConflictException If the user is updated or deleted concurrently.
      */
     @Override
-    public void deleteUser(Long id) throws EntityNotFoundException {
+    public User deleteUser(Long id) throws EntityNotFoundException, EntityConflictException {
+        User userToDelete;
         try {
             JPAHelper.beginTransaction();
-            if (userDAO.getById(id) == null) {
+            userToDelete = userDAO.getById(id);
+            if (userToDelete == null) {
                 throw new EntityNotFoundException(User.class, id);
             }
             userDAO.delete(id);
+            JPAHelper.flush();
             JPAHelper.commitTransaction();
         } catch (EntityNotFoundException e) {
             JPAHelper.rollbackTransaction();
-            LoggerUtil.getCurrentLogger().warning("Delete rollback");
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Delete rollback - User {0,number,#} not found", id);
             throw e;
+        } catch (OptimisticLockException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Delete rollback - User {0,number,#} modified concurrently", id);
+            throw new EntityConflictException(User.class, id);
         } finally {
             JPAHelper.closeEntityManager();
         }
+        return userToDelete;
     }
 
     /**
-     * Retrieves a list of users by their username.
+     * Deletes the users with the given IDs from the system in a single statement.
      *
-     * @param username The username of users to search for.
-     * @return A list of User objects matching the specified username.
-     * @throws EntityNotFoundException If no users with the specified username are found.
+     * @param ids The IDs of the users to be deleted.
+     * @return The number of users deleted; IDs that do not exist are not counted.
      */
     @Override
-    public List<User> getUserByUsername(String username) throws EntityNotFoundException {
-        List<User> users;
+    public int deleteUsers(Collection<Long> ids) {
+        int deleted;
         try {
             JPAHelper.beginTransaction();
-            users = userDAO.getByUsername(username);
-            if (users.size() == 0) {
+            deleted = userDAO.deleteAllById(ids);
+            JPAHelper.commitTransaction();
+        } catch (PersistenceException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Bulk delete rollback - {0}", e.getMessage());
+            throw e;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+        return deleted;
+    }
+
+    /**
+     * Retrieves one page of users whose username starts with the given prefix.
+     *
+     * @param username The username prefix of users to search for.
+     * @param after    The position after which the page starts, or null for the first page.
+     * @param limit    The maximum number of users to return.
+     * @return A list of UserDTO objects matching the specified username.
+     * @throws EntityNotFoundException If the first page contains no users.
+     */
+    @Override
+    public List<UserDTO> getUserByUsername(String username, KeysetCursor after, int limit) throws EntityNotFoundException {
+        List<UserDTO> users;
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            users = userDAO.getByUsername(username, after, limit);
+            if (users.size() == 0 && after == null) {
                 throw new EntityNotFoundException(List.class, 0L);
             }
             JPAHelper.commitTransaction();
@@ -137,6 +265,31 @@ public class UserServiceImpl implements IUserService{
         return users;
     }
 
+    /**
+     * Passes every user whose username starts with the given prefix to the given action,
+     * one at a time, while they are read from the database.
+     *
+     * @param username The username prefix of users to export.
+     * @param action   The action to perform on each user.
+     */
+    @Override
+    public void exportUsers(String username, Consumer<UserDTO> action) {
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            try (Stream<UserDTO> users = userDAO.streamByUsername(username, EXPORT_FETCH_SIZE)) {
+                // Projections are not managed, so the persistence context stays empty
+                users.forEach(action);
+            }
+            JPAHelper.commitTransaction();
+        } catch (RuntimeException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Export users rollback - {0}", e.getMessage());
+            throw e;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
     /**
      * Retrieves information about a specific user by their ID.
      *
@@ -148,7 +301,7 @@ public class UserServiceImpl implements IUserService{
     public User getUserById(Long id) throws EntityNotFoundException {
         User user;
         try {
-            JPAHelper.beginTransaction();
+            JPAHelper.beginReadOnlyTransaction();
             user = userDAO.getById(id);
             if (user == null) {
                 throw new EntityNotFoundException(User.class, id);
@@ -156,8 +309,7 @@ public class UserServiceImpl implements IUserService{
             JPAHelper.commitTransaction();
         } catch (EntityNotFoundException e) {
             JPAHelper.rollbackTransaction();
-            LoggerUtil.getCurrentLogger().warning("Get user by id rollback " +
-                    "- User not found");
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Get user by id rollback - User {0,number,#} not found", id);
             throw e;
         } finally {
             JPAHelper.closeEntityManager();
@@ -165,11 +317,144 @@ public class UserServiceImpl implements IUserService{
         return user;
     }
 
-    private User map(UserCredentialsDTO dto) {
+    /**
+     * Retrieves the version of a specific user by their ID, without loading the user.
+     *
+     * @param id The ID of the user.
+     * @return The version and last modification time of the user.
+     * @throws EntityNotFoundException If the specified user is not found in the system.
+     */
+    @Override
+    public VersionDTO getUserVersion(Long id) throws EntityNotFoundException {
+        VersionDTO version;
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            version = userDAO.getVersionById(id);
+            if (version == null) {
+                throw new EntityNotFoundException(User.class, id);
+            }
+            JPAHelper.commitTransaction();
+        } catch (EntityNotFoundException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Get user version rollback - User {0,number,#} not found", id);
+            throw e;
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+        return version;
+    }
+
+    /**
+     * Checks the credentials of a user. The user is read in a short read-only transaction and the password
+     * is verified on the password hashing pool after it ends, so no connection is held meanwhile and the
+     * calling thread does not wait for the hash. A password stored in plain text or with a lower cost than
+     * the current one is hashed again in the background.
+     *
+     * @param username The username of the user.
+     * @param password The password of the user.
+     * @return A future completed with the authenticated User object, including its role, or exceptionally with
+     *         an {@link InvalidCredentialsException} if there is no such user or the password is wrong.
+     * @throws java.util.concurrent.RejectedExecutionException If the password hashing pool is saturated.
+     */
+    @Override
+    public CompletableFuture<User> authenticate(String username, String password) {
+        User user;
+        try {
+            JPAHelper.beginReadOnlyTransaction();
+            user = userDAO.getFirstByUsername(username);
+            JPAHelper.commitTransaction();
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+
+        String stored = (user == null) ? null : user.getPassword();
+        return PasswordHasher.verifyAsync(password, stored).thenApply(matches -> {
+            if (!matches || user == null) {
+                LoggerUtil.getCurrentLogger().log(Level.WARNING, "Login failed for user {0}", username);
+                throw new CompletionException(new InvalidCredentialsException(username));
+            }
+            if (PasswordHasher.needsRehash(stored)) {
+                rehashPassword(user.getId(), stored, password);
+            }
+            return user;
+        });
+    }
+
+    /**
+     * Hash a password again on the hashing pool and store it from the database executor.
+     * The login does not wait for it; if either pool is saturated, the password is hashed again on a later one.
+     */
+    private void rehashPassword(Long id, String stored, String password) {
+        try {
+            PasswordHasher.hashAsync(password)
+                    .thenAccept(passwordHash -> DbExecutor.submit(() -> storeRehash(id, stored, passwordHash)))
+                    .exceptionally(e -> {
+                        LoggerUtil.getCurrentLogger().log(Level.WARNING, "Rehash password skipped - User {0,number,#}: {1}",
+                                new Object[] {id, e.getMessage()});
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Rehash password skipped - User {0,number,#}: {1}",
+                    new Object[] {id, e.getMessage()});
+        }
+    }
+
+    private void storeRehash(Long id, String stored, String passwordHash) {
+        try {
+            JPAHelper.beginTransaction();
+            User user = userDAO.getById(id);
+            // Unless the password was changed meanwhile
+            if ((user != null) && stored.equals(user.getPassword())) {
+                user.setPassword(passwordHash);
+            }
+            JPAHelper.commitTransaction();
+        } catch (RuntimeException e) {
+            // The login has succeeded; the password is hashed again on a later one
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().log(Level.WARNING, "Rehash password rollback - User {0,number,#}: {1}",
+                    new Object[] {id, e.getMessage()});
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+    }
+
+    private static void checkNew(UserCredentialsDTO userCredentialsDTO) throws EntityAlreadyExistsException {
+        if (userCredentialsDTO.getId() != null) {
+            LoggerUtil.getCurrentLogger().warning("Insert user - entity already exists");
+            throw new EntityAlreadyExistsException(User.class, userCredentialsDTO.getId());
+        }
+    }
+
+    private List<BulkResultDTO> insertChunk(List<Integer> indexes, List<User> users) {
+        List<BulkResultDTO> results = new ArrayList<>(users.size());
+        if (users.isEmpty()) {
+            return results;
+        }
+        try {
+            JPAHelper.beginTransaction();
+            userDAO.insertAll(users);
+            JPAHelper.commitTransaction();
+            for (int i = 0; i < users.size(); i++) {
+                results.add(new BulkResultDTO(indexes.get(i), users.get(i).getId(), BulkResultDTO.Status.CREATED, null));
+            }
+        } catch (PersistenceException e) {
+            JPAHelper.rollbackTransaction();
+            LoggerUtil.getCurrentLogger().warning("Bulk insert users - " +
+                    "rollback - chunk failed");
+            for (Integer index : indexes) {
+                results.add(new BulkResultDTO(index, null, BulkResultDTO.Status.FAILED, e.getMessage()));
+            }
+        } finally {
+            JPAHelper.closeEntityManager();
+        }
+        return results;
+    }
+
+    private User map(UserCredentialsDTO dto, String passwordHash) {
         User user = new User();
         user.setId(dto.getId());
         user.setUsername(dto.getUsername());
-        user.setPassword(dto.getPassword());
+        user.setPassword(passwordHash);
         return user;
     }
 }
@@ -0,0 +1,19 @@
+package gr.aueb.cf.schoolapp.service.exceptions;
+/**
+ * Custom exception class to represent the situation where an entity was changed by someone else
+ * since the version the caller based its change on.
+ */
+public class EntityConflictException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an exception with a message indicating that an entity of a specified class and ID
+     * does not have the expected version.
+     *
+     * @param entityClass The class of the entity that was changed concurrently.
+     * @param id          The unique identifier of the entity that was changed concurrently.
+     */
+    public EntityConflictException(Class<?> entityClass, Long id) {
+        super("Entity " + entityClass.getSimpleName() + " with id " + id + " was modified concurrently");
+    }
+}
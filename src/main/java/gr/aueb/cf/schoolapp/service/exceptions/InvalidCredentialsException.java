@@ -0,0 +1,17 @@
+package gr.aueb.cf.schoolapp.service.exceptions;
+/**
+ * Custom exception class to represent a failed login: either the user does not exist or the password is wrong.
+ * The two cases are deliberately not distinguished.
+ */
+public class InvalidCredentialsException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an exception with a message indicating that the credentials of a user are invalid.
+     *
+     * @param username The username that failed to log in.
+     */
+    public InvalidCredentialsException(String username) {
+        super("Invalid credentials for user " + username);
+    }
+}
@@ -0,0 +1,219 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A logging Handler that appends records to a file from a background thread.
+ * <p>
+ * Publishing only enqueues the record on a bounded lock-free queue, so the calling thread never
+ * formats, takes a lock or touches the disk. The writer thread formats the records (including any
+ * message parameters), writes them in batches and flushes once per batch. When the queue is full
+ * the record is either dropped (counted and reported later in the file) or the caller waits for
+ * room, depending on the {@link OverflowPolicy}.
+ * <p>
+ * The default format names the logger rather than the source method: the source is only known
+ * on the publishing thread, and finding it there would mean walking the caller's stack.
+ */
+public class AsyncFileHandler extends Handler {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * What to do with a record published while the queue is full.
+     */
+    public enum OverflowPolicy {
+        DROP,   // Discard the record and count it.
+        BLOCK   // Wait until the writer makes room.
+    }
+
+    private final Queue<LogRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Writer writer;
+    private final Thread writerThread;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a handler appending to the given file.
+     *
+     * @param fileName       The file to append to.
+     * @param capacity       The maximum number of records waiting to be written.
+     * @param overflowPolicy What to do with records published while the queue is full.
+     * @throws IOException If the file cannot be opened.
+     */
+    public AsyncFileHandler(String fileName, int capacity, OverflowPolicy overflowPolicy) throws IOException {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName, true), StandardCharsets.UTF_8));
+        setFormatter(new LineFormatter());
+        writerThread = new Thread(this::drain, "schoolapp-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Enqueue a record for the writer thread.
+     *
+     * @param record The record to write.
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+
+        while (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            if (overflowPolicy == OverflowPolicy.DROP || closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            // Wait until the writer has made room for a batch, rather than for a single record
+            while ((size.get() > capacity / 2) && !closed) {
+                LockSupport.unpark(writerThread);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+        queue.offer(record);
+        if (idle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Wake the writer thread, so that queued records are written soon. Does not wait for them.
+     */
+    @Override
+    public void flush() {
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Stop accepting records, write the queued ones and close the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the number of records dropped because the queue was full.
+     *
+     * @return The number of dropped records since the handler was created.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        long reported = 0;
+        try {
+            while (true) {
+                boolean wrote = false;
+                LogRecord record;
+                while ((record = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    write(record);
+                    wrote = true;
+                }
+
+                long droppedNow = dropped.get();
+                if (droppedNow != reported) {
+                    writer.write("WARNING: " + (droppedNow - reported) + " log records dropped, log queue full"
+                            + System.lineSeparator());
+                    reported = droppedNow;
+                    wrote = true;
+                }
+                if (wrote) {
+                    writer.flush(); // Once per batch
+                }
+
+                if (closed && queue.isEmpty()) {
+                    break;
+                }
+                idle = true;
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        } catch (IOException e) {
+            reportError("Cannot write log file", e, ErrorManager.WRITE_FAILURE);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                reportError("Cannot close log file", e, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+    }
+
+    private void write(LogRecord record) throws IOException {
+        Formatter formatter = getFormatter();
+        String line;
+        try {
+            line = formatter.format(record);
+        } catch (RuntimeException e) {
+            reportError("Cannot format log record", e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        writer.write(line);
+    }
+
+    /**
+     * Formats a record as one line: time, level, logger, thread and message, followed by
+     * the stack trace of the exception, if any.
+     */
+    private static class LineFormatter extends Formatter {
+        private static final DateTimeFormatter TIMESTAMP =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+        @Override
+        public String format(LogRecord record) {
+            StringBuilder line = new StringBuilder(128)
+                    .append(TIMESTAMP.format(record.getInstant()))
+                    .append(' ').append(record.getLevel().getName())
+                    .append(" [").append(record.getLoggerName())
+                    .append("] (thread ").append(record.getThreadID()).append(") ")
+                    .append(formatMessage(record))
+                    .append(System.lineSeparator());
+            if (record.getThrown() != null) {
+                StringWriter trace = new StringWriter();
+                record.getThrown().printStackTrace(new PrintWriter(trace));
+                line.append(trace);
+            }
+            return line.toString();
+        }
+    }
+}
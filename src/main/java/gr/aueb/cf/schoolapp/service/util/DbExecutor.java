@@ -0,0 +1,159 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A utility class owning the executor that runs blocking database work off the container threads.
+ * <p>
+ * By default it has one platform thread per pooled JDBC connection, so its tasks never wait for a
+ * connection, and a bounded queue, so that an overload is rejected instead of piling up.
+ * With {@code -Dschoolapp.executor=virtual} (JDK 21+) every task runs on its own virtual thread
+ * instead, and the same number of tasks (running plus queued) is admitted by a semaphore; tasks
+ * waiting for a connection then park their virtual thread rather than hold a platform thread.
+ */
+public class DbExecutor {
+    public static final String MODE_PROPERTY = "schoolapp.executor";
+    private static final int QUEUE_CAPACITY_PER_THREAD = 4;
+    private static ExecutorService executor;
+    private static volatile Semaphore permits;
+
+    private DbExecutor() {}
+
+    /**
+     * Submit database work to the executor.
+     *
+     * @param task The work to run.
+     * @return A Future that can cancel the work while it is still queued.
+     * @throws RejectedExecutionException If the executor is saturated or shut down.
+     */
+    public static Future<?> submit(Runnable task) {
+        ExecutorService executorService = getExecutor();
+        Semaphore admission = permits;
+        if (admission == null) {
+            return executorService.submit(() -> runAndClear(task));
+        }
+
+        if (!admission.tryAcquire()) {
+            throw new RejectedExecutionException("Database executor saturated");
+        }
+        try {
+            return executorService.submit(() -> {
+                try {
+                    runAndClear(task);
+                } finally {
+                    admission.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the executor, creating it on first use in the mode selected by the
+     * "schoolapp.executor" system property ("platform" or "virtual").
+     *
+     * @return The executor.
+     */
+    public static synchronized ExecutorService getExecutor() {
+        if ((executor == null) || executor.isShutdown()) {
+            int threads = JPAHelper.getMaximumPoolSize();
+            int capacity = threads * QUEUE_CAPACITY_PER_THREAD;
+            if (isVirtual()) {
+                executor = newVirtualThreadPerTaskExecutor();
+                permits = new Semaphore(threads + capacity);
+            } else {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(capacity), new DbThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+                permits = null;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Check whether the executor runs its tasks on virtual threads.
+     *
+     * @return True if virtual threads are requested and supported by the running JDK.
+     */
+    public static boolean isVirtual() {
+        if (!"virtual".equalsIgnoreCase(System.getProperty(MODE_PROPERTY))) {
+            return false;
+        }
+        if (!isVirtualThreadSupported()) {
+            LoggerUtil.getCurrentLogger().warning("Virtual threads need JDK 21 or later, using platform threads");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the running JDK supports virtual threads.
+     *
+     * @return True on JDK 21 or later.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Stop accepting work and wait briefly for the running work to finish.
+     */
+    public static synchronized void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        permits = null;
+    }
+
+    private static void runAndClear(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            JPAHelper.clearThread();
+        }
+    }
+
+    // Looked up reflectively so that the project still builds and runs on Java 11
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available", e);
+        }
+    }
+
+    private static class DbThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "schoolapp-db-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
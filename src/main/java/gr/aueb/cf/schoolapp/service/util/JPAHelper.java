@@ -1,29 +1,139 @@
 package gr.aueb.cf.schoolapp.service.util;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.Persistence;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A utility class for managing Java Persistence API (JPA) operations.
  */
 public class JPAHelper {
-    private static EntityManagerFactory emf;
-    protected static ThreadLocal<EntityManager> threadLocal = new ThreadLocal<>();
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+    private static volatile EntityManagerFactory emf;
+    // Set by closeEMF: the application is stopping and no new factory (or pool) may be built
+    private static volatile boolean closed;
+    private static final Object emfLock = new Object();
+    protected static final ThreadLocal<EntityManager> threadLocal = new ThreadLocal<>();
+    // Set while a unit of work is active on the thread: true if it is read-only
+    private static final ThreadLocal<Boolean> unitOfWork = new ThreadLocal<>();
+    private static final String STARTED = "schoolapp_transactions_started_total";
+    private static final String STARTED_HELP = "Transactions begun, by mode";
+    private static final String ENDED = "schoolapp_transactions_ended_total";
+    private static final String ENDED_HELP = "Transactions ended, by outcome";
+    private static final LongAdder readWriteTransactions = Metrics.counter(STARTED, STARTED_HELP, Metrics.labels("mode", "read_write"));
+    private static final LongAdder readOnlyTransactions = Metrics.counter(STARTED, STARTED_HELP, Metrics.labels("mode", "read_only"));
+    private static final LongAdder committedTransactions = Metrics.counter(ENDED, ENDED_HELP, Metrics.labels("outcome", "commit"));
+    private static final LongAdder failedCommits = Metrics.counter(ENDED, ENDED_HELP, Metrics.labels("outcome", "failed_commit"));
+    private static final LongAdder rolledBackTransactions = Metrics.counter(ENDED, ENDED_HELP, Metrics.labels("outcome", "rollback"));
 
     private JPAHelper() {}
 
     /**
-     * Get the EntityManagerFactory.
+     * Get the EntityManagerFactory, building it if it has not been built yet.
+     * Concurrent callers wait for the one that builds it, so it is built only once.
      *
      * @return The EntityManagerFactory instance for JPA operations.
+     * @throws IllegalStateException If the EntityManagerFactory has been closed by {@link #closeEMF()}.
      */
     public static EntityManagerFactory getEntityManagerFactory() {
-        if ((emf == null) || (!emf.isOpen())) {
-            emf = Persistence.createEntityManagerFactory("teachers22PU");
+        EntityManagerFactory factory = emf;
+        if ((factory != null) && !closed) {
+            return factory;
         }
 
-        return emf;
+        synchronized (emfLock) {
+            if (closed) {
+                throw new IllegalStateException("The EntityManagerFactory has been closed");
+            }
+            if (emf == null) {
+                emf = Persistence.createEntityManagerFactory("teachers22PU", getOverrides());
+            }
+            return emf;
+        }
+    }
+
+    /**
+     * Open the connection pool's minimum number of idle connections ("hibernate.hikari.minimumIdle")
+     * now, instead of in the background or on first use.
+     *
+     * @return The number of connections opened or validated.
+     * @throws SQLException If a connection cannot be obtained.
+     */
+    public static int warmUpConnectionPool() throws SQLException {
+        HikariDataSource dataSource = getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class)
+                .unwrap(HikariDataSource.class);
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < dataSource.getMinimumIdle(); i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        return connections.size();
+    }
+
+    /**
+     * Get the statistics of the JDBC connection pool backing the EntityManagerFactory.
+     *
+     * @return The pool statistics (active, idle, total and waiting threads).
+     */
+    public static HikariPoolMXBean getConnectionPoolStatistics() {
+        ConnectionProvider provider = getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        return provider.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+    }
+
+    /**
+     * Get the configured JDBC batch size ("hibernate.jdbc.batch_size").
+     *
+     * @return The number of statements sent to the database per JDBC batch.
+     */
+    public static int getBatchSize() {
+        Object batchSize = getEntityManagerFactory().getProperties().get("hibernate.jdbc.batch_size");
+        return (batchSize == null) ? DEFAULT_BATCH_SIZE : Integer.parseInt(batchSize.toString());
+    }
+
+    /**
+     * Get the configured maximum size of the connection pool ("hibernate.hikari.maximumPoolSize").
+     *
+     * @return The maximum number of JDBC connections that can be in use at the same time.
+     */
+    public static int getMaximumPoolSize() {
+        Object poolSize = getEntityManagerFactory().getProperties().get("hibernate.hikari.maximumPoolSize");
+        return (poolSize == null) ? DEFAULT_MAXIMUM_POOL_SIZE : Integer.parseInt(poolSize.toString());
+    }
+
+    /**
+     * Get the Hibernate statistics of the EntityManagerFactory, including the
+     * hit/miss/put counters of the second-level and query cache regions.
+     *
+     * @return The statistics of the EntityManagerFactory.
+     */
+    public static Statistics getStatistics() {
+        return getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getStatistics();
     }
 
     /**
@@ -42,37 +152,215 @@ public class JPAHelper {
     }
 
     /**
-     * Close the EntityManager associated with the current thread.
+     * Close the EntityManager associated with the current thread and detach it from the thread.
+     * Inside a unit of work this is deferred to {@link #endUnitOfWork(boolean)}.
      */
     public static void closeEntityManager() {
-        getEntityManager().close();
+        if (unitOfWork.get() == null) {
+            discardEntityManager();
+        }
     }
 
     /**
      * Begin a transaction using the current EntityManager.
+     * Inside a unit of work, the unit's transaction is started on first use and shared.
+     *
+     * @throws IllegalStateException If called inside a read-only unit of work.
      */
     public static void beginTransaction() {
-        getEntityManager().getTransaction().begin();
+        Boolean readOnly = unitOfWork.get();
+        if (readOnly == null) {
+            begin(getEntityManager().getTransaction());
+        } else if (readOnly) {
+            throw new IllegalStateException("Write transaction requested in a read-only unit of work");
+        } else {
+            beginUnitOfWorkTransaction(false);
+        }
+    }
+
+    /**
+     * Begin a read-only transaction using the current EntityManager.
+     * Entities loaded in it are read-only (no snapshots for dirty checking),
+     * nothing is flushed on commit and the JDBC connection is marked read-only.
+     * Inside a unit of work, the unit's transaction is started on first use and shared.
+     */
+    public static void beginReadOnlyTransaction() {
+        Boolean readOnly = unitOfWork.get();
+        if (readOnly == null) {
+            startReadOnly(getEntityManager());
+        } else {
+            beginUnitOfWorkTransaction(readOnly);
+        }
     }
 
     /**
      * Commit the transaction using the current EntityManager.
+     * Inside a unit of work this is deferred to {@link #endUnitOfWork(boolean)}.
      */
     public static void commitTransaction() {
-        getEntityManager().getTransaction().commit();
+        if (unitOfWork.get() == null) {
+            commit(getEntityManager().getTransaction());
+        }
+    }
+
+    /**
+     * Flush the pending changes of the current EntityManager to the database, so that
+     * failures such as optimistic lock conflicts surface now rather than at commit.
+     */
+    public static void flush() {
+        getEntityManager().flush();
     }
 
     /**
-     * Roll back the transaction using the current EntityManager.
+     * Roll back the transaction using the current EntityManager, if it is still active
+     * (a failed commit has already rolled it back).
+     * Inside a unit of work the transaction is marked for rollback at the end of the unit.
      */
     public static void rollbackTransaction() {
-        getEntityManager().getTransaction().rollback();
+        EntityTransaction transaction = getEntityManager().getTransaction();
+        if (!transaction.isActive()) {
+            return;
+        }
+        if (unitOfWork.get() == null) {
+            rollback(transaction);
+        } else {
+            transaction.setRollbackOnly();
+        }
     }
 
     /**
-     * Close the EntityManagerFactory.
+     * Begin a unit of work on the current thread: until {@link #endUnitOfWork(boolean)},
+     * all service calls share one EntityManager and one transaction, which is started
+     * on first use. Anything left on the thread by an earlier unit is discarded.
+     *
+     * @param readOnly Whether the unit only reads (see {@link #beginReadOnlyTransaction()}).
+     */
+    public static void beginUnitOfWork(boolean readOnly) {
+        discardEntityManager();
+        unitOfWork.set(readOnly);
+        QueryMonitor.beginScope();
+    }
+
+    /**
+     * End the unit of work of the current thread: commit its transaction (or roll it back
+     * if it failed or was marked for rollback), close its EntityManager and clear the thread.
+     *
+     * @param success Whether the work succeeded and should be committed.
+     * @throws jakarta.persistence.PersistenceException If the commit fails.
+     */
+    public static void endUnitOfWork(boolean success) {
+        try {
+            EntityManager em = threadLocal.get();
+            if ((em != null) && em.isOpen() && em.getTransaction().isActive()) {
+                EntityTransaction transaction = em.getTransaction();
+                if (success && !transaction.getRollbackOnly()) {
+                    commit(transaction);
+                } else {
+                    rollback(transaction);
+                }
+            }
+        } finally {
+            unitOfWork.remove();
+            discardEntityManager();
+            QueryMonitor.endScope();
+        }
+    }
+
+    /**
+     * Release whatever the current thread still holds: roll back and close its EntityManager
+     * and forget any unit of work. Executors call this after each task, so that neither pooled
+     * threads nor short-lived virtual threads keep EntityManagers (and connections) alive.
+     */
+    public static void clearThread() {
+        unitOfWork.remove();
+        discardEntityManager();
+        QueryMonitor.endScope();
+    }
+
+    private static void beginUnitOfWorkTransaction(boolean readOnly) {
+        EntityManager em = getEntityManager();
+        if (em.getTransaction().isActive()) {
+            return;
+        }
+        if (readOnly) {
+            startReadOnly(em);
+        } else {
+            begin(em.getTransaction());
+        }
+    }
+
+    private static void startReadOnly(EntityManager em) {
+        Session session = em.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        em.getTransaction().begin();
+        readOnlyTransactions.increment();
+        // The pool restores the read-only flag when the connection is returned
+        session.doWork(connection -> connection.setReadOnly(true));
+    }
+
+    private static void begin(EntityTransaction transaction) {
+        transaction.begin();
+        readWriteTransactions.increment();
+    }
+
+    private static void commit(EntityTransaction transaction) {
+        try {
+            transaction.commit();
+            committedTransactions.increment();
+        } catch (RuntimeException e) {
+            failedCommits.increment();
+            throw e;
+        }
+    }
+
+    private static void rollback(EntityTransaction transaction) {
+        transaction.rollback();
+        rolledBackTransactions.increment();
+    }
+
+    private static void discardEntityManager() {
+        EntityManager em = threadLocal.get();
+        threadLocal.remove();
+        if ((em != null) && em.isOpen()) {
+            try {
+                // Left over by a request that never reached endUnitOfWork
+                if (em.getTransaction().isActive()) {
+                    rollback(em.getTransaction());
+                }
+            } finally {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Close the EntityManagerFactory, if it is open, for good: from then on
+     * {@link #getEntityManagerFactory()} fails instead of building a new one.
      */
     public static void closeEMF() {
-        emf.close();
+        synchronized (emfLock) {
+            closed = true;
+            if ((emf != null) && emf.isOpen()) {
+                emf.close();
+            }
+        }
+    }
+
+    /**
+     * Collect the "hibernate.*" system properties, so that pool sizing and
+     * connection settings of persistence.xml can be overridden per deployment
+     * (e.g. -Dhibernate.hikari.maximumPoolSize=50).
+     *
+     * @return The persistence unit property overrides.
+     */
+    private static Map<String, Object> getOverrides() {
+        Map<String, Object> overrides = new HashMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("hibernate.")) {
+                overrides.put(name, System.getProperty(name));
+            }
+        }
+        return overrides;
     }
 }
@@ -0,0 +1,90 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * A utility class issuing and verifying the signed (HMAC-SHA256) JSON Web Tokens of logged-in users.
+ * <p>
+ * The signing key is "schoolapp.jwt.secret" (base64, at least 32 bytes), which must be the same on
+ * every instance; without it a random key is generated, and tokens do not survive a restart.
+ * Tokens are valid for "schoolapp.jwt.ttlMinutes" (60) minutes, and carry the user's role, if any,
+ * as it was when they were issued.
+ */
+public class JwtUtil {
+    public static final String USERNAME_CLAIM = "username";
+    public static final String ROLE_CLAIM = "role";
+    private static final String ISSUER = "schoolapp";
+    private static final long TTL_SECONDS = Long.getLong("schoolapp.jwt.ttlMinutes", 60) * 60;
+    private static final SecretKey key = createKey();
+    private static final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .requireIssuer(ISSUER)
+            .build();
+
+    private JwtUtil() {}
+
+    /**
+     * Issue a token for a user.
+     *
+     * @param userId   The ID of the user, stored as the subject.
+     * @param username The username of the user.
+     * @param role     The role of the user, or null.
+     * @return The signed token.
+     */
+    public static String issue(Long userId, String username, String role) {
+        Instant now = Instant.now();
+        JwtBuilder builder = Jwts.builder()
+                .setIssuer(ISSUER)
+                .setSubject(String.valueOf(userId))
+                .claim(USERNAME_CLAIM, username);
+        if (role != null) {
+            builder.claim(ROLE_CLAIM, role);
+        }
+        return builder
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusSeconds(TTL_SECONDS)))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Verify the signature, issuer and expiration of a token and read its claims.
+     *
+     * @param token The token.
+     * @return The claims of the token.
+     * @throws JwtException If the token is malformed, not signed with our key, or expired.
+     */
+    public static Claims verify(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Get the lifetime of the tokens issued.
+     *
+     * @return The number of seconds a token is valid for.
+     */
+    public static long getTtlSeconds() {
+        return TTL_SECONDS;
+    }
+
+    private static SecretKey createKey() {
+        String secret = System.getProperty("schoolapp.jwt.secret");
+        if (secret == null) {
+            LoggerUtil.getCurrentLogger().warning("schoolapp.jwt.secret is not set - "
+                    + "signing tokens with a random key, valid until the next restart");
+            return Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        }
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+}
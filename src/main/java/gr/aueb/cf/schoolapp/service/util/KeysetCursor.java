@@ -0,0 +1,72 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * An opaque position in a result ordered by (key, id), used for keyset pagination.
+ * The next page starts right after the row with the given key and id.
+ */
+public class KeysetCursor {
+    private final String key;
+    private final Long id;
+
+    /**
+     * Constructs a cursor pointing right after the row with the given key and id.
+     *
+     * @param key The ordering key (e.g. last name) of the last row returned.
+     * @param id  The ID of the last row returned.
+     */
+    public KeysetCursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * Get the ordering key of the last row returned.
+     *
+     * @return The ordering key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the ID of the last row returned.
+     *
+     * @return The row ID.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Encode the cursor into a URL-safe token.
+     *
+     * @return The encoded cursor.
+     */
+    public String encode() {
+        String raw = id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @param token The encoded cursor, may be null or empty.
+     * @return The decoded cursor, or null if no token was given.
+     * @throws IllegalArgumentException If the token is malformed.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new KeysetCursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)));
+    }
+}
@@ -3,28 +3,37 @@ package gr.aueb.cf.schoolapp.service.util;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Logger;
-import java.util.logging.SimpleFormatter;
 /**
  * Utility class for configuring and obtaining a logger instance.
+ * <p>
+ * The logger writes to "cf.log" through an {@link AsyncFileHandler}, so logging never blocks
+ * a request on disk I/O. It can be configured with system properties: "schoolapp.log.file",
+ * "schoolapp.log.capacity" (records waiting to be written, 8192 by default) and
+ * "schoolapp.log.overflow" (DROP, the default, or BLOCK). Messages should pass their
+ * variable parts as parameters, e.g. {@code logger.log(Level.WARNING, "Teacher {0} not found", id)},
+ * so that nothing is formatted on the request thread, or at all when the level is disabled.
  */
 public class LoggerUtil {
     private static final Logger logger = Logger.getLogger(LoggerUtil.class.getName());
 
     static {
-        SLF4JBridgeHandler.install(); // Installs the bridge (JUL-to-SLF) Handler
+        SLF4JBridgeHandler.install(); // Installs the bridge (JUL-to-SLF) Handler for the other loggers
 
         Handler fileHandler;
         try {
-            fileHandler = new FileHandler("cf.log", true);  // true for appending to the file
-            fileHandler.setFormatter(new SimpleFormatter());
+            fileHandler = new AsyncFileHandler(
+                    System.getProperty("schoolapp.log.file", "cf.log"),
+                    Integer.getInteger("schoolapp.log.capacity", 8192),
+                    AsyncFileHandler.OverflowPolicy.valueOf(System.getProperty("schoolapp.log.overflow", "DROP")));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
         logger.addHandler(fileHandler);
+        // Records would otherwise also reach the bridge and be written again, synchronously
+        logger.setUseParentHandlers(false);
     }
 
     private LoggerUtil() {}
@@ -37,4 +46,14 @@ public class LoggerUtil {
     public static Logger getCurrentLogger() {
         return logger;
     }
+
+    /**
+     * Close the log file, after writing the records still waiting to be written.
+     */
+    public static void close() {
+        for (Handler handler : logger.getHandlers()) {
+            logger.removeHandler(handler);
+            handler.close();
+        }
+    }
 }
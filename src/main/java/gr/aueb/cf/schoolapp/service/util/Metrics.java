@@ -0,0 +1,182 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A utility class holding the application's metrics and rendering them in the Prometheus
+ * text exposition format (version 0.0.4).
+ * <p>
+ * Metrics are registered once, by name and rendered labels, and the returned instance is
+ * meant to be kept by the caller, so that recording is only an update of that instance.
+ * Durations are recorded in nanoseconds by {@link LatencyHistogram} timers and exposed as
+ * summaries in seconds (quantiles 0.5, 0.95 and 0.99, sum and count) plus a "_max" gauge.
+ */
+public class Metrics {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+    private static final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    /**
+     * Get or register a timer.
+     *
+     * @param name   The metric name, e.g. "schoolapp_http_request_duration_seconds".
+     * @param help   The description of the metric.
+     * @param labels The rendered labels (see {@link #labels(String...)}), or "" for none.
+     * @return The timer, to be kept by the caller.
+     */
+    public static LatencyHistogram timer(String name, String help, String labels) {
+        return (LatencyHistogram) family(name, help, Type.SUMMARY).metrics.computeIfAbsent(labels, l -> new LatencyHistogram());
+    }
+
+    /**
+     * Get or register a counter.
+     *
+     * @param name   The metric name, ending in "_total".
+     * @param help   The description of the metric.
+     * @param labels The rendered labels (see {@link #labels(String...)}), or "" for none.
+     * @return The counter, to be kept by the caller.
+     */
+    public static LongAdder counter(String name, String help, String labels) {
+        return (LongAdder) family(name, help, Type.COUNTER).metrics.computeIfAbsent(labels, l -> new LongAdder());
+    }
+
+    /**
+     * Register a gauge, whose value is read when the metrics are rendered.
+     *
+     * @param name     The metric name.
+     * @param help     The description of the metric.
+     * @param labels   The rendered labels (see {@link #labels(String...)}), or "" for none.
+     * @param supplier The source of the current value.
+     */
+    public static void gauge(String name, String help, String labels, DoubleSupplier supplier) {
+        family(name, help, Type.GAUGE).metrics.put(labels, supplier);
+    }
+
+    /**
+     * Render label names and values, escaping the values.
+     *
+     * @param namesAndValues Alternating label names and values.
+     * @return The labels, e.g. {@code route="GET /teachers",status="200"}.
+     */
+    public static String labels(String... namesAndValues) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            if (labels.length() > 0) {
+                labels.append(',');
+            }
+            labels.append(namesAndValues[i]).append("=\"");
+            String value = namesAndValues[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    labels.append('\\').append(c);
+                } else if (c == '\n') {
+                    labels.append("\\n");
+                } else {
+                    labels.append(c);
+                }
+            }
+            labels.append('"');
+        }
+        return labels.toString();
+    }
+
+    /**
+     * Render all metrics in the Prometheus text format.
+     *
+     * @return The metrics, sorted by name and labels.
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : new TreeMap<>(families).values()) {
+            family.writeTo(out);
+        }
+        return out.toString();
+    }
+
+    private static Family family(String name, String help, Type type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        }
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type);
+        }
+        return family;
+    }
+
+    private enum Type {
+        COUNTER, GAUGE, SUMMARY
+    }
+
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        private void writeTo(StringBuilder out) {
+            Map<String, Object> sorted = new TreeMap<>(metrics);
+            header(out, name, type.name().toLowerCase());
+            for (Map.Entry<String, Object> metric : sorted.entrySet()) {
+                String labels = metric.getKey();
+                switch (type) {
+                    case COUNTER:
+                        sample(out, name, labels, ((LongAdder) metric.getValue()).sum());
+                        break;
+                    case GAUGE:
+                        sample(out, name, labels, ((DoubleSupplier) metric.getValue()).getAsDouble());
+                        break;
+                    default:
+                        LatencyHistogram timer = (LatencyHistogram) metric.getValue();
+                        for (double quantile : QUANTILES) {
+                            String quantileLabel = "quantile=\"" + quantile + "\"";
+                            sample(out, name, labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel,
+                                    timer.getPercentile(quantile) / NANOS_PER_SECOND);
+                        }
+                        sample(out, name + "_sum", labels, timer.getSum() / NANOS_PER_SECOND);
+                        sample(out, name + "_count", labels, timer.getCount());
+                }
+            }
+
+            if (type == Type.SUMMARY) {
+                header(out, name + "_max", "gauge");
+                for (Map.Entry<String, Object> metric : sorted.entrySet()) {
+                    sample(out, name + "_max", metric.getKey(), ((LatencyHistogram) metric.getValue()).getMax() / NANOS_PER_SECOND);
+                }
+            }
+        }
+
+        private void header(StringBuilder out, String metricName, String metricType) {
+            out.append("# HELP ").append(metricName).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(metricName).append(' ').append(metricType).append('\n');
+        }
+
+        private static void sample(StringBuilder out, String metricName, String labels, double value) {
+            out.append(metricName);
+            if (!labels.isEmpty()) {
+                out.append('{').append(labels).append('}');
+            }
+            out.append(' ');
+            if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+                out.append((long) value);
+            } else {
+                out.append(value);
+            }
+            out.append('\n');
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import org.hibernate.hikaricp.internal.HikariCPConnectionProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The HikariCP connection provider, reporting the statements executed on its connections
+ * to the {@link QueryMonitor}: their SQL, bound parameters and execution time.
+ * <p>
+ * Connections obtained while the monitor is disabled are returned unwrapped.
+ */
+public class MonitoringConnectionProvider extends HikariCPConnectionProvider {
+    private static final long serialVersionUID = 1L;
+    private static final Set<String> PREPARE_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    /**
+     * Get a connection from the pool.
+     *
+     * @return The connection, monitored if the query monitor is enabled.
+     * @throws SQLException If no connection can be obtained.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return QueryMonitor.isEnabled() ? monitor(connection) : connection;
+    }
+
+    private static Connection monitor(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(MonitoringConnectionProvider.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Wraps the statements created by a connection.
+     */
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = MonitoringConnectionProvider.invoke(connection, method, args);
+            if (!PREPARE_METHODS.contains(method.getName())) {
+                return result;
+            }
+            String sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+            return Proxy.newProxyInstance(MonitoringConnectionProvider.class.getClassLoader(),
+                    new Class<?>[] {method.getReturnType()}, new StatementHandler((Statement) result, sql));
+        }
+    }
+
+    /**
+     * Keeps the parameters bound to a statement and times its executions.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final List<Object> parameters = new ArrayList<>();
+        private int batchSize;
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+            return MonitoringConnectionProvider.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String executed = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : sql;
+            boolean batch = method.getName().endsWith("Batch");
+            long start = System.nanoTime();
+            try {
+                return MonitoringConnectionProvider.invoke(statement, method, args);
+            } finally {
+                QueryMonitor.record(String.valueOf(executed), parameters, batch ? batchSize : 0, System.nanoTime() - start);
+                if (batch) {
+                    batchSize = 0;
+                }
+            }
+        }
+
+        private void bind(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A utility class hashing passwords with PBKDF2 (HMAC-SHA256) on a dedicated pool.
+ * <p>
+ * A hash costs milliseconds of CPU on purpose, so hashing runs on its own pool with one thread
+ * per core ("schoolapp.password.threads") and a bounded queue: concurrent sign-ups can use at
+ * most the CPU the pool has, and an overload is rejected instead of starving request threads.
+ * Callers hash before opening a transaction, so no connection is held while waiting.
+ * <p>
+ * {@link #hashAsync(String)} and {@link #verifyAsync(String, String)} return as soon as the work
+ * is queued, so a suspended request does not hold its thread while the hash is computed; sign-up
+ * and login use them. {@link #hash(String)} and {@link #verify(String, String)} block the calling
+ * thread until the hash is done, for callers that are already off the request threads.
+ * Bulk inserts also use the pool to hash the passwords of a chunk in parallel.
+ * <p>
+ * The cost is the number of iterations ("schoolapp.password.iterations", 310000 by default);
+ * {@link #calibrate(long)} finds the number that takes a target time on this machine. Hashes are
+ * stored as "pbkdf2-sha256$iterations$salt$hash", so a new cost applies to new hashes and old ones
+ * still verify.
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int QUEUE_CAPACITY_PER_THREAD = 16;
+    private static final int CALIBRATION_ITERATIONS = 1000;
+    private static final long CALIBRATION_PROBE_NANOS = TimeUnit.MILLISECONDS.toNanos(25);
+    private static final long CALIBRATION_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+    private static final SecureRandom random = new SecureRandom();
+
+    private static volatile String dummyHash;
+    private static volatile int iterations = Integer.getInteger("schoolapp.password.iterations", 310000);
+    private static final ThreadPoolExecutor executor = createExecutor(
+            Integer.getInteger("schoolapp.password.threads", Runtime.getRuntime().availableProcessors()));
+
+    private PasswordHasher() {}
+
+    /**
+     * Hash a password on the hashing pool, with a new random salt and the current cost.
+     *
+     * @param password The password, or null.
+     * @return The encoded hash, or null if the password is null.
+     * @throws RejectedExecutionException If the hashing pool is saturated.
+     */
+    public static String hash(String password) {
+        return await(hashAsync(password));
+    }
+
+    /**
+     * Hash a password on the hashing pool without waiting for it, with a new random salt and the current cost.
+     *
+     * @param password The password, or null.
+     * @return A future completed with the encoded hash, or with null if the password is null.
+     * @throws RejectedExecutionException If the hashing pool is saturated.
+     */
+    public static CompletableFuture<String> hashAsync(String password) {
+        if (password == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int cost = iterations;
+        return CompletableFuture.supplyAsync(() -> hashNow(password, cost), executor);
+    }
+
+    /**
+     * Hash many passwords on the hashing pool, a pool's worth at a time, so that a bulk request
+     * does not fill the queue shared with single requests.
+     *
+     * @param passwords The passwords; null elements stay null.
+     * @return The encoded hashes, in the order of the passwords.
+     * @throws RejectedExecutionException If the hashing pool is saturated.
+     */
+    public static List<String> hashAll(List<String> passwords) {
+        List<String> hashes = new ArrayList<>(passwords.size());
+        int window = executor.getMaximumPoolSize();
+        int cost = iterations;
+        for (int start = 0; start < passwords.size(); start += window) {
+            List<Future<String>> futures = new ArrayList<>(window);
+            for (String password : passwords.subList(start, Math.min(start + window, passwords.size()))) {
+                futures.add((password == null) ? null : executor.submit(() -> hashNow(password, cost)));
+            }
+            for (Future<String> future : futures) {
+                hashes.add((future == null) ? null : await(future));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Check a password against a stored value on the hashing pool, in time independent of where they differ.
+     * The stored value may also be a plain-text password saved before passwords were hashed, or null when
+     * there is no such user; both take as long as checking a hash, so that response times do not tell them apart.
+     *
+     * @param password The password to check.
+     * @param stored   The encoded hash (as returned by {@link #hash(String)}), a plain-text password, or null.
+     * @return True if the password matches.
+     * @throws RejectedExecutionException If the hashing pool is saturated.
+     */
+    public static boolean verify(String password, String stored) {
+        return await(verifyAsync(password, stored));
+    }
+
+    /**
+     * Check a password against a stored value on the hashing pool without waiting for it,
+     * as {@link #verify(String, String)} does.
+     *
+     * @param password The password to check.
+     * @param stored   The encoded hash (as returned by {@link #hash(String)}), a plain-text password, or null.
+     * @return A future completed with true if the password matches.
+     * @throws RejectedExecutionException If the hashing pool is saturated.
+     */
+    public static CompletableFuture<Boolean> verifyAsync(String password, String stored) {
+        if (password == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (isHash(stored)) {
+            return CompletableFuture.supplyAsync(() -> verifyNow(password, stored), executor);
+        }
+        return CompletableFuture.supplyAsync(() -> verifyNow(password, dummyHash()), executor)
+                .thenApply(ignored -> (stored != null) && MessageDigest.isEqual(
+                        stored.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Check whether a stored value is a PBKDF2 hash produced by this class.
+     *
+     * @param encoded The stored value.
+     * @return True if it is a hash, false if it is null or something else (e.g. a plain-text password).
+     */
+    public static boolean isHash(String encoded) {
+        return (encoded != null) && encoded.startsWith(PREFIX + "$");
+    }
+
+    /**
+     * Check whether a hash was made with fewer iterations than the current cost.
+     *
+     * @param encoded The encoded hash.
+     * @return True if the password should be hashed again when next known.
+     */
+    public static boolean needsRehash(String encoded) {
+        if (!isHash(encoded)) {
+            return true;
+        }
+        String[] parts = encoded.split("\\$");
+        try {
+            return (parts.length != 4) || (Integer.parseInt(parts[1]) < iterations);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Get the number of iterations used for new hashes.
+     *
+     * @return The number of iterations.
+     */
+    public static int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Set the number of iterations used for new hashes.
+     *
+     * @param iterations The number of iterations.
+     * @throws IllegalArgumentException If the number of iterations is not positive.
+     */
+    public static void setIterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Invalid number of iterations: " + iterations);
+        }
+        PasswordHasher.iterations = iterations;
+    }
+
+    /**
+     * Measure this machine and find the number of iterations for which one hash takes the target time.
+     * Hashes long enough to time reliably are run for a few seconds, until the JIT has fully compiled
+     * HMAC-SHA256 (before that a hash is several times slower), and the fastest rate is used.
+     *
+     * @param targetMillis The target time of one hash in milliseconds.
+     * @return The number of iterations, rounded to a thousand.
+     */
+    public static int calibrate(long targetMillis) {
+        byte[] salt = new byte[SALT_BYTES];
+        int probe = CALIBRATION_ITERATIONS;
+        double bestNanosPerIteration = Double.MAX_VALUE;
+        long end = System.nanoTime() + CALIBRATION_NANOS;
+        while (System.nanoTime() < end || bestNanosPerIteration == Double.MAX_VALUE) {
+            long start = System.nanoTime();
+            pbkdf2("calibration", salt, probe);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < CALIBRATION_PROBE_NANOS && probe <= Integer.MAX_VALUE / 2) {
+                probe *= 2;
+            } else {
+                bestNanosPerIteration = Math.min(bestNanosPerIteration, (double) elapsed / probe);
+            }
+        }
+        long target = Math.round(TimeUnit.MILLISECONDS.toNanos(targetMillis) / bestNanosPerIteration / 1000.0) * 1000;
+        return (int) Math.max(1000, Math.min(Integer.MAX_VALUE, target));
+    }
+
+    /**
+     * Stop the hashing pool; queued hashes are still completed.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    private static String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            byte[] password = new byte[SALT_BYTES];
+            random.nextBytes(password);
+            hash = hashNow(ENCODER.encodeToString(password), iterations);
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private static boolean verifyNow(String password, String encoded) {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            byte[] salt = DECODER.decode(parts[2]);
+            byte[] expected = DECODER.decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, Integer.parseInt(parts[1])));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String hashNow(String password, int cost) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return PREFIX + "$" + cost + "$" + ENCODER.encodeToString(salt) + "$"
+                + ENCODER.encodeToString(pbkdf2(password, salt, cost));
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int cost) {
+        char[] chars = password.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, cost, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "schoolapp-password-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
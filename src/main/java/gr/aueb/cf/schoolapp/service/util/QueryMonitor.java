@@ -0,0 +1,308 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import gr.aueb.cf.schoolapp.dto.QueryStatisticsDTO;
+import gr.aueb.cf.schoolapp.dto.SlowQueryDTO;
+import org.hibernate.stat.Statistics;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * A utility class observing the SQL statements the application executes, as reported by the
+ * {@link MonitoringConnectionProvider}.
+ * <p>
+ * Every statement is counted and timed. Statements slower than the threshold are logged with
+ * their bound parameters and the application method that executed them, and the most recent
+ * ones are kept for the admin statistics endpoint. Within a unit of work, a select repeated
+ * more than "schoolapp.query.repeatThreshold" times (10) is reported as a possible N+1, and a
+ * unit of work executing more than "schoolapp.query.statementLimit" statements (50) is reported
+ * as excessive; each is reported once per unit of work.
+ * <p>
+ * It is enabled unless "schoolapp.query.monitor" is false, and the slow query threshold is
+ * "schoolapp.query.slowMillis" (200); both can be changed at runtime.
+ * <p>
+ * The selects a thread executes can also be captured with their parameters, so that the
+ * {@link QueryPlanVerifier} can explain the SQL Hibernate actually generated.
+ */
+public class QueryMonitor {
+    private static final int RECENT_SLOW_QUERIES = 50;
+    private static final int MAX_PARAMETER_LENGTH = 64;
+    private static final String APPLICATION_PACKAGE = "gr.aueb.cf.schoolapp.";
+    private static final String UTIL_PACKAGE = QueryMonitor.class.getPackageName() + ".";
+
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("schoolapp.query.monitor"));
+    private static volatile long slowThresholdNanos =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("schoolapp.query.slowMillis", 200));
+    private static final int repeatThreshold = Integer.getInteger("schoolapp.query.repeatThreshold", 10);
+    private static final int statementLimit = Integer.getInteger("schoolapp.query.statementLimit", 50);
+
+    private static final LatencyHistogram statementTimer = Metrics.timer("schoolapp_db_statement_duration_seconds",
+            "Execution time of SQL statements", "");
+    private static final LongAdder statements = Metrics.counter("schoolapp_db_statements_total",
+            "Number of SQL statements executed", "");
+    private static final LongAdder slowStatements = Metrics.counter("schoolapp_db_slow_statements_total",
+            "Number of SQL statements slower than the slow query threshold", "");
+    private static final LongAdder repeatedStatements = Metrics.counter("schoolapp_db_repeated_statements_total",
+            "Number of selects repeated too often within one unit of work (possible N+1)", "");
+    private static final LongAdder statementLimitExceeded = Metrics.counter("schoolapp_db_statement_limit_exceeded_total",
+            "Number of units of work that executed too many statements", "");
+
+    private static final ThreadLocal<Scope> scope = new ThreadLocal<>();
+    private static final ThreadLocal<Map<String, List<Object>>> capture = new ThreadLocal<>();
+    private static final ArrayDeque<SlowQueryDTO> recentSlowQueries = new ArrayDeque<>(RECENT_SLOW_QUERIES);
+
+    private QueryMonitor() {}
+
+    /**
+     * Check whether statements are monitored. Connections obtained while it is disabled are not monitored.
+     *
+     * @return True if statements are monitored.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the monitoring of statements on connections obtained from now on.
+     *
+     * @param enabled True to monitor statements.
+     */
+    public static void setEnabled(boolean enabled) {
+        QueryMonitor.enabled = enabled;
+    }
+
+    /**
+     * Get the slow query threshold.
+     *
+     * @return The execution time in milliseconds above which statements are logged as slow.
+     */
+    public static long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    /**
+     * Set the slow query threshold.
+     *
+     * @param millis The execution time in milliseconds above which statements are logged as slow.
+     * @throws IllegalArgumentException If the threshold is negative.
+     */
+    public static void setSlowThresholdMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Negative slow query threshold: " + millis);
+        }
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Start counting the statements of a unit of work on the current thread.
+     */
+    public static void beginScope() {
+        scope.set(new Scope());
+    }
+
+    /**
+     * Stop counting the statements of the unit of work on the current thread.
+     */
+    public static void endScope() {
+        scope.remove();
+    }
+
+    /**
+     * Start capturing the selects executed on the current thread. Only statements on monitored
+     * connections are seen, so nothing is captured while the monitor is disabled.
+     */
+    static void beginCapture() {
+        capture.set(new LinkedHashMap<>());
+    }
+
+    /**
+     * Stop capturing the selects executed on the current thread.
+     *
+     * @return The distinct selects captured since {@link #beginCapture()}, in execution order,
+     *         each with the parameters of its first execution.
+     */
+    static Map<String, List<Object>> endCapture() {
+        Map<String, List<Object>> captured = capture.get();
+        capture.remove();
+        return (captured == null) ? Map.of() : captured;
+    }
+
+    /**
+     * Record an executed statement.
+     *
+     * @param sql        The SQL of the statement.
+     * @param parameters The parameters bound to the statement (of its last row, for a batch).
+     * @param batchSize  The number of rows of a batch, or 0 if the statement is not a batch.
+     * @param nanos      The execution time of the statement.
+     */
+    static void record(String sql, List<Object> parameters, int batchSize, long nanos) {
+        statements.increment();
+        statementTimer.record(nanos);
+
+        Scope current = scope.get();
+        if (current != null) {
+            current.count(sql);
+        }
+        Map<String, List<Object>> captured = capture.get();
+        if ((captured != null) && isSelect(sql)) {
+            captured.putIfAbsent(sql, new ArrayList<>(parameters));
+        }
+        if (nanos >= slowThresholdNanos) {
+            slow(sql, parameters, batchSize, nanos);
+        }
+    }
+
+    /**
+     * Get the statement counters, the Hibernate statistics and the most recent slow statements.
+     *
+     * @return The query statistics.
+     */
+    public static QueryStatisticsDTO getStatistics() {
+        Statistics statistics = JPAHelper.getStatistics();
+        QueryStatisticsDTO dto = new QueryStatisticsDTO();
+        dto.setStatisticsEnabled(statistics.isStatisticsEnabled());
+        dto.setMonitorEnabled(enabled);
+        dto.setSlowQueryThresholdMillis(getSlowThresholdMillis());
+        dto.setStatements(statements.sum());
+        dto.setSlowStatements(slowStatements.sum());
+        dto.setRepeatedStatementWarnings(repeatedStatements.sum());
+        dto.setStatementLimitWarnings(statementLimitExceeded.sum());
+        dto.setQueryExecutionCount(statistics.getQueryExecutionCount());
+        dto.setQueryExecutionMaxTimeMillis(statistics.getQueryExecutionMaxTime());
+        dto.setSlowestQuery(statistics.getQueryExecutionMaxTimeQueryString());
+        dto.setEntityLoadCount(statistics.getEntityLoadCount());
+        dto.setEntityFetchCount(statistics.getEntityFetchCount());
+        dto.setCollectionFetchCount(statistics.getCollectionFetchCount());
+        dto.setSecondLevelCacheHitCount(statistics.getSecondLevelCacheHitCount());
+        dto.setSecondLevelCacheMissCount(statistics.getSecondLevelCacheMissCount());
+        dto.setQueryCacheHitCount(statistics.getQueryCacheHitCount());
+        dto.setQueryCacheMissCount(statistics.getQueryCacheMissCount());
+        dto.setPrepareStatementCount(statistics.getPrepareStatementCount());
+        dto.setTransactionCount(statistics.getTransactionCount());
+        synchronized (recentSlowQueries) {
+            dto.setRecentSlowQueries(new ArrayList<>(recentSlowQueries));
+        }
+        return dto;
+    }
+
+    /**
+     * Enable or disable the collection of Hibernate statistics.
+     *
+     * @param enabled True to collect Hibernate statistics.
+     */
+    public static void setStatisticsEnabled(boolean enabled) {
+        JPAHelper.getStatistics().setStatisticsEnabled(enabled);
+    }
+
+    /**
+     * Reset the statement counters and the Hibernate statistics, and forget the recent slow statements.
+     */
+    public static void reset() {
+        statements.reset();
+        slowStatements.reset();
+        repeatedStatements.reset();
+        statementLimitExceeded.reset();
+        JPAHelper.getStatistics().clear();
+        synchronized (recentSlowQueries) {
+            recentSlowQueries.clear();
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.regionMatches(true, 0, "select", 0, 6);
+    }
+
+    private static void slow(String sql, List<Object> parameters, int batchSize, long nanos) {
+        slowStatements.increment();
+        String origin = origin();
+        String bound = formatParameters(sql, parameters, batchSize);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        LoggerUtil.getCurrentLogger().log(Level.WARNING, "Slow query ({0,number,#} ms) in {1}: {2} {3}",
+                new Object[] {millis, origin, sql, bound});
+
+        SlowQueryDTO slowQuery = new SlowQueryDTO(sql, bound, millis, origin, Instant.now().toString());
+        synchronized (recentSlowQueries) {
+            if (recentSlowQueries.size() == RECENT_SLOW_QUERIES) {
+                recentSlowQueries.removeLast();
+            }
+            recentSlowQueries.addFirst(slowQuery);
+        }
+    }
+
+    /**
+     * The innermost application method on the stack outside this package, e.g. "TeacherDAOImpl.getByLastName".
+     */
+    private static String origin() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APPLICATION_PACKAGE) && !f.getClassName().startsWith(UTIL_PACKAGE))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName())
+                .orElse("unknown"));
+    }
+
+    /**
+     * Parameters of statements on password columns are masked.
+     */
+    private static String formatParameters(String sql, List<Object> parameters, int batchSize) {
+        boolean masked = sql.toLowerCase(Locale.ROOT).contains("password");
+        StringBuilder bound = new StringBuilder("[");
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                bound.append(", ");
+            }
+            Object value = parameters.get(i);
+            if (value == null) {
+                bound.append("null");
+            } else if (masked) {
+                bound.append("****");
+            } else if (value instanceof CharSequence) {
+                String text = value.toString();
+                bound.append('\'')
+                        .append(text.length() > MAX_PARAMETER_LENGTH ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text)
+                        .append('\'');
+            } else {
+                bound.append(value);
+            }
+        }
+        bound.append(']');
+        if (batchSize > 0) {
+            bound.append(" (last of a batch of ").append(batchSize).append(')');
+        }
+        return bound.toString();
+    }
+
+    /**
+     * The statements executed by one unit of work.
+     */
+    private static final class Scope {
+        private final Map<String, int[]> selects = new HashMap<>();
+        private int statementCount;
+
+        private void count(String sql) {
+            if (++statementCount == statementLimit + 1) {
+                statementLimitExceeded.increment();
+                LoggerUtil.getCurrentLogger().log(Level.WARNING,
+                        "More than {0,number,#} statements in one unit of work, in {1}: {2}",
+                        new Object[] {statementLimit, origin(), sql});
+            }
+            if (isSelect(sql)) {
+                int[] count = selects.computeIfAbsent(sql, s -> new int[1]);
+                if (++count[0] == repeatThreshold + 1) {
+                    repeatedStatements.increment();
+                    LoggerUtil.getCurrentLogger().log(Level.WARNING,
+                            "Possible N+1: select repeated more than {0,number,#} times in one unit of work, in {1}: {2}",
+                            new Object[] {repeatThreshold, origin(), sql});
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Utility class that checks, with EXPLAIN, that the queries of the DAOs are executed through
+ * indexes instead of full scans.
+ * <p>
+ * The queries are not written out here: the selects Hibernate generates while the DAO methods run
+ * are captured by the {@link QueryMonitor} with their parameters, and each one is explained as is.
+ * A plan reading a whole table or index (MySQL access type ALL or index, an H2 table scan) is a
+ * failure. MySQL may prefer a scan for a small table, so scans it estimates at fewer than
+ * "schoolapp.verifyQueryPlans.minRows" rows (1000) are accepted.
+ */
+public class QueryPlanVerifier {
+    private static final long minRows = Long.getLong("schoolapp.verifyQueryPlans.minRows", 1000);
+
+    private QueryPlanVerifier() {}
+
+    /**
+     * Check whether query plans are verified at startup: unless "schoolapp.verifyQueryPlans" is false,
+     * and only while the query monitor, which sees the selects, is enabled.
+     *
+     * @return True if query plans are verified.
+     */
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("schoolapp.verifyQueryPlans")) && QueryMonitor.isEnabled();
+    }
+
+    /**
+     * Run the given DAO calls, explain every distinct select they execute, and log a warning
+     * for each one whose plan contains a full scan.
+     *
+     * @param queries The DAO calls; they must run on the current thread.
+     * @return The selects whose plan contains a full scan; empty if there are none.
+     * @throws IllegalStateException If the query monitor is disabled, so the selects cannot be seen.
+     */
+    public static List<String> verify(Runnable queries) {
+        if (!QueryMonitor.isEnabled()) {
+            throw new IllegalStateException("Query plans cannot be verified while the query monitor is disabled");
+        }
+
+        Map<String, List<Object>> statements;
+        QueryMonitor.beginCapture();
+        try {
+            queries.run();
+        } finally {
+            statements = QueryMonitor.endCapture();
+        }
+
+        List<String> failures = new ArrayList<>();
+        EntityManager em = JPAHelper.getEntityManagerFactory().createEntityManager();
+        try {
+            em.unwrap(Session.class).doWork(connection -> {
+                for (Map.Entry<String, List<Object>> statement : statements.entrySet()) {
+                    String plan = explain(connection, statement.getKey(), statement.getValue());
+                    if (plan != null) {
+                        failures.add(statement.getKey());
+                        LoggerUtil.getCurrentLogger().log(Level.WARNING, "Full scan in query plan: {0} -> {1}",
+                                new Object[] {statement.getKey(), plan});
+                    }
+                }
+            });
+        } finally {
+            em.close();
+        }
+        LoggerUtil.getCurrentLogger().log(Level.INFO, "Verified the plans of {0} queries, {1} with a full scan",
+                new Object[] {statements.size(), failures.size()});
+        return failures;
+    }
+
+    /**
+     * Explain a select with the parameters it was executed with.
+     *
+     * @return The plan rows that scan a whole table or index, or null if there are none.
+     */
+    private static String explain(Connection connection, String sql, List<Object> parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder fullScans = new StringBuilder();
+            try (ResultSet plan = statement.executeQuery()) {
+                ResultSetMetaData columns = plan.getMetaData();
+                while (plan.next()) {
+                    if (isFullScan(plan, columns)) {
+                        fullScans.append(row(plan, columns));
+                    }
+                }
+            }
+            return (fullScans.length() == 0) ? null : fullScans.toString();
+        }
+    }
+
+    /**
+     * MySQL reports a full table scan as access type ALL and a full index scan as index, with an
+     * estimate of the rows read; H2 has a single plan column naming the scan.
+     */
+    private static boolean isFullScan(ResultSet plan, ResultSetMetaData columns) throws SQLException {
+        String type = null;
+        long rows = Long.MAX_VALUE;
+        for (int i = 1; i <= columns.getColumnCount(); i++) {
+            String label = columns.getColumnLabel(i);
+            String value = plan.getString(i);
+            if (label.equalsIgnoreCase("type")) {
+                type = value;
+            } else if (label.equalsIgnoreCase("rows") && value != null) {
+                rows = Long.parseLong(value);
+            } else if (columns.getColumnCount() == 1 && value != null && value.contains(".tableScan")) {
+                return true;
+            }
+        }
+        return ("ALL".equalsIgnoreCase(type) || "index".equalsIgnoreCase(type)) && rows >= minRows;
+    }
+
+    private static String row(ResultSet plan, ResultSetMetaData columns) throws SQLException {
+        StringBuilder row = new StringBuilder("[");
+        for (int i = 1; i <= columns.getColumnCount(); i++) {
+            row.append((i > 1) ? ", " : "").append(columns.getColumnLabel(i)).append('=').append(plan.getString(i));
+        }
+        return row.append(']').toString();
+    }
+}
@@ -0,0 +1,25 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import javax.enterprise.util.Nonbinding;
+import javax.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean whose method calls are timed by the {@link TimedInterceptor}.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Timed {
+
+    /**
+     * The layer the bean belongs to, used as the "layer" label of its timers.
+     *
+     * @return The layer, e.g. "service" or "dao".
+     */
+    @Nonbinding
+    String value() default "service";
+}
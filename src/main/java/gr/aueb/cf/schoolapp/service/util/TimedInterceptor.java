@@ -0,0 +1,55 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import javax.annotation.Priority;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the duration of every call to a {@link Timed} bean in a per-method timer
+ * ("schoolapp_method_duration_seconds"), labelled with the bean's layer and the method.
+ */
+@Timed
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class TimedInterceptor {
+    private static final String NAME = "schoolapp_method_duration_seconds";
+    private static final String HELP = "Duration of service and DAO method calls";
+    private static final ConcurrentMap<Method, LatencyHistogram> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Time a method call, whether it returns or throws.
+     *
+     * @param context The intercepted call.
+     * @return The result of the call.
+     * @throws Exception The exception thrown by the call.
+     */
+    @AroundInvoke
+    public Object time(InvocationContext context) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return context.proceed();
+        } finally {
+            timerOf(context.getMethod()).record(System.nanoTime() - start);
+        }
+    }
+
+    private static LatencyHistogram timerOf(Method method) {
+        LatencyHistogram timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, TimedInterceptor::register);
+        }
+        return timer;
+    }
+
+    private static LatencyHistogram register(Method method) {
+        Class<?> beanClass = method.getDeclaringClass();
+        Timed timed = beanClass.getAnnotation(Timed.class);
+        String layer = (timed == null) ? "service" : timed.value();
+        return Metrics.timer(NAME, HELP, Metrics.labels("layer", layer,
+                "method", beanClass.getSimpleName() + "." + method.getName()));
+    }
+}